@@ -0,0 +1,62 @@
+package com.github.dunklemango.starboundmodmanager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/**
+ * Shared setup of the benchmarks: an isolated application directory and generated modFiles.
+ */
+public final class BenchmarkEnvironment {
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private BenchmarkEnvironment() {
+
+    }
+
+    /**
+     * Points the user home, and with it the application directory, to a new temporary directory.
+     * Has to be called before any manager is used, as the application directory is resolved only once per JVM.
+     */
+    public static Path isolateUserHome() throws IOException {
+        Path home = Files.createTempDirectory("starboundmodmanager-jmh");
+        System.setProperty("user.home", home.toString());
+        return home;
+    }
+
+    /**
+     * Writes a file of the given size filled with reproducible pseudo-random bytes.
+     */
+    public static void writeRandomFile(Path file, long size, long seed) throws IOException {
+        Random random = new Random(seed);
+        byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    public static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.dunklemango.starboundmodmanager.scan;
+
+import com.github.dunklemango.starboundmodmanager.BenchmarkEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scanning synthetic trees shaped like the workshop content directory and the mods directory,
+ * as done when the tables of the application are filled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModScannerBenchmark {
+    private static final long MOD_FILE_SIZE = 4096;
+    @Param({"100", "1000"})
+    public int mods;
+    private Path root;
+    private Path workshopContent;
+    private Path modsDirectory;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("starboundmodmanager-jmh-scan");
+        workshopContent = Files.createDirectory(root.resolve("211820"));
+        modsDirectory = Files.createDirectory(root.resolve("mods"));
+        for (int i = 0; i < mods; i++) {
+            int id = 700000000 + i;
+            Path workshopItemDirectory = Files.createDirectory(workshopContent.resolve(String.valueOf(id)));
+            BenchmarkEnvironment.writeRandomFile(workshopItemDirectory.resolve("contents.pak"), MOD_FILE_SIZE, id);
+            BenchmarkEnvironment.writeRandomFile(workshopItemDirectory.resolve("preview.jpg"), MOD_FILE_SIZE, id);
+            BenchmarkEnvironment.writeRandomFile(modsDirectory.resolve(id + ".pak"), MOD_FILE_SIZE, id);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkEnvironment.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public ScanSnapshot scanWorkshopContent() throws IOException {
+        return ModScanner.scanWorkshopContent(workshopContent);
+    }
+
+    @Benchmark
+    public ScanSnapshot scanModsDirectory() throws IOException {
+        return ModScanner.scanModsDirectory(modsDirectory);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.dunklemango.starboundmodmanager.storage;
+
+import com.github.dunklemango.starboundmodmanager.BenchmarkEnvironment;
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and saving the workshop cache. Every fork works on its own application directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WorkshopCacheManagerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int entries;
+    private Path home;
+    private WorkshopCacheManager manager;
+
+    @Setup
+    public void setup() throws IOException, JSONException {
+        home = BenchmarkEnvironment.isolateUserHome();
+        manager = WorkshopCacheManager.getInstance();
+        List<WorkshopItem> workshopItems = new ArrayList<>();
+        for (int id = 0; id < entries; id++) {
+            JSONObject obj = new JSONObject();
+            obj.put("id", id);
+            obj.put("title", "Benchmark Mod " + id);
+            obj.put("time_updated", 1561939200L + id);
+            obj.put("file_size", 52428800L + id);
+            obj.put("preview_url", "https://steamuserimages-a.akamaihd.net/ugc/" + id + "/preview.jpg");
+            workshopItems.add(new WorkshopItem(obj));
+        }
+        manager.putAll(workshopItems);
+        manager.saveData();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkEnvironment.deleteRecursively(home);
+    }
+
+    @Benchmark
+    public WorkshopCacheManager loadData() {
+        manager.loadData();
+        return manager;
+    }
+
+    /**
+     * {@link WorkshopCacheManager#saveData()} only writes after changes, so the write it does then is measured.
+     */
+    @Benchmark
+    public WorkshopCacheManager saveData() {
+        manager.compact();
+        return manager;
+    }
+}
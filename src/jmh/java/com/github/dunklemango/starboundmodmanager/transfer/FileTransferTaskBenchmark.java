@@ -0,0 +1,97 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+import com.github.dunklemango.starboundmodmanager.BenchmarkEnvironment;
+import javafx.embed.swing.JFXPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures transferring generated modFiles into an existing mods directory with every {@link TransferMode}.
+ * Before every transfer, one byte of every installed modFile is changed, as an update of the mod would do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileTransferTaskBenchmark {
+    private static final long MEGABYTE = 1024 * 1024;
+    @Param({"8"})
+    public int files;
+    @Param({"1", "64"})
+    public int fileSizeMegabytes;
+    @Param({"COPY", "LINK", "DELTA"})
+    public TransferMode transferMode;
+    @Param({"SSD", "HDD"})
+    public StorageType storageType;
+    private Path root;
+    private List<File> inputFiles = new ArrayList<>();
+    private List<File> outputFiles = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        // the task reports its progress through the JavaFX thread, which this starts
+        new JFXPanel();
+        root = Files.createTempDirectory("starboundmodmanager-jmh-transfer");
+        Path workshopContent = Files.createDirectory(root.resolve("211820"));
+        Path modsDirectory = Files.createDirectory(root.resolve("mods"));
+        for (int i = 0; i < files; i++) {
+            int id = 700000000 + i;
+            Path inputFile = Files.createDirectory(workshopContent.resolve(String.valueOf(id))).resolve("contents.pak");
+            Path outputFile = modsDirectory.resolve(id + ".pak");
+            BenchmarkEnvironment.writeRandomFile(inputFile, fileSizeMegabytes * MEGABYTE, id);
+            Files.copy(inputFile, outputFile);
+            inputFiles.add(inputFile.toFile());
+            outputFiles.add(outputFile.toFile());
+        }
+    }
+
+    /**
+     * Changes a byte in the middle of every installed modFile, unless it is linked to its input.
+     */
+    @Setup(Level.Invocation)
+    public void changeOutputFiles() throws IOException {
+        for (int i = 0; i < files; i++) {
+            Path outputPath = outputFiles.get(i).toPath();
+            if (Files.isSymbolicLink(outputPath) || Files.isSameFile(outputPath, inputFiles.get(i).toPath())) {
+                Files.delete(outputPath);
+                Files.copy(inputFiles.get(i).toPath(), outputPath);
+            }
+            try (RandomAccessFile file = new RandomAccessFile(outputFiles.get(i), "rw")) {
+                long position = file.length() / 2;
+                file.seek(position);
+                int value = file.read();
+                file.seek(position);
+                file.write(value ^ 1);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkEnvironment.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public TransferTaskInformation transfer() throws InterruptedException, ExecutionException {
+        FileTransferTask task = new FileTransferTask(inputFiles, outputFiles, storageType, transferMode);
+        task.run();
+        return task.get();
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and serializing a single workshopItem in the compact and in the former full-details format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkshopItemBenchmark {
+    private String serializedItem;
+    private String serializedLegacyItem;
+    private WorkshopItem item;
+
+    @Setup
+    public void setup() throws JSONException {
+        JSONObject details = createDetails(729480149);
+        JSONObject legacyItem = new JSONObject();
+        legacyItem.put("id", 729480149);
+        legacyItem.put("data", details);
+        serializedLegacyItem = legacyItem.toString();
+        item = new WorkshopItem(serializedLegacyItem);
+        item.releaseDetails();
+        serializedItem = item.toString();
+    }
+
+    /**
+     * Creates details shaped like a "publishedfiledetails" entry of the Steam API.
+     */
+    static JSONObject createDetails(int id) throws JSONException {
+        JSONObject details = new JSONObject();
+        details.put("publishedfileid", String.valueOf(id));
+        details.put("result", 1);
+        details.put("creator", "76561197960287930");
+        details.put("creator_app_id", 211820);
+        details.put("consumer_app_id", 211820);
+        details.put("filename", "");
+        details.put("file_size", 52428800L + id % 1000);
+        details.put("file_url", "");
+        details.put("hcontent_file", "4863749223498723410");
+        details.put("preview_url", "https://steamuserimages-a.akamaihd.net/ugc/" + id + "/preview.jpg");
+        details.put("hcontent_preview", "4863749223498723411");
+        details.put("title", "Benchmark Mod " + id);
+        details.put("description", "A description of a mod that is about as long as the average one on the workshop."
+                + " It lists the features, the compatibility with other mods and a short changelog.");
+        details.put("time_created", 1467331200L);
+        details.put("time_updated", 1561939200L + id % 1000);
+        details.put("visibility", 0);
+        details.put("banned", 0);
+        details.put("ban_reason", "");
+        details.put("subscriptions", 120000);
+        details.put("favorited", 4000);
+        details.put("lifetime_subscriptions", 150000);
+        details.put("lifetime_favorited", 5000);
+        details.put("views", 300000);
+        return details;
+    }
+
+    @Benchmark
+    public WorkshopItem parseCompact() {
+        return new WorkshopItem(serializedItem);
+    }
+
+    @Benchmark
+    public WorkshopItem parseLegacy() {
+        return new WorkshopItem(serializedLegacyItem);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return item.toString();
+    }
+}
@@ -0,0 +1,300 @@
+package com.github.dunklemango.starboundmodmanager;
+
+import com.github.dunklemango.starboundmodmanager.data.ModFile;
+import com.github.dunklemango.starboundmodmanager.scan.ScanSnapshot;
+import com.github.dunklemango.starboundmodmanager.storage.SettingsManager;
+import com.github.dunklemango.starboundmodmanager.storage.WorkshopCacheManager;
+import com.github.dunklemango.starboundmodmanager.sync.ModDiff;
+import com.github.dunklemango.starboundmodmanager.sync.ModSyncEngine;
+import com.github.dunklemango.starboundmodmanager.transfer.FileTransfer;
+import com.github.dunklemango.starboundmodmanager.transfer.StorageType;
+import com.github.dunklemango.starboundmodmanager.transfer.TransferMode;
+import com.github.dunklemango.starboundmodmanager.transfer.TransferTaskInformation;
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Headless entry point, running the {@link ModSyncEngine} without JavaFX.
+ * <pre>
+ * CommandLineLauncher [--steam &lt;dir&gt;] [--mode copy|link|delta] [--storage ssd|hdd] [--fetch] &lt;command&gt;
+ *   scan              lists the workshop downloads, the installed mods and how they differ
+ *   update-all        installs every workshop download whose content differs from the installed mod
+ *   install &lt;ids&gt;     installs the workshop downloads with the ids
+ *   remove &lt;ids&gt;      removes the installed mods with the ids
+ *   export-cache &lt;file&gt;  writes the workshop cache to the file as JSON
+ *   import-cache &lt;file&gt;  reads the workshop cache from a JSON file written by export-cache
+ * </pre>
+ * The result is printed to stdout as a single JSON object, the log is written to stderr.
+ * Exits with 0 on success, 1 if any mod failed or was not found and 2 on wrong usage.
+ */
+public class CommandLineLauncher {
+    private static final String LOGGER_CONTEXT_FACTORY_PROPERTY = "log4j2.loggerContextFactory";
+    private static final String SIMPLE_LOG_LEVEL_PROPERTY = "org.apache.logging.log4j.simplelog.level";
+
+    static {
+        // has to be set before the first logger exists. The simple logger of the log4j api writes to stderr, so the
+        // log does not mix with the printed result, and it skips the configuration of log4j core, which would take
+        // most of the startup time. A factory passed on the command line is kept.
+        if (System.getProperty(LOGGER_CONTEXT_FACTORY_PROPERTY) == null) {
+            System.setProperty(LOGGER_CONTEXT_FACTORY_PROPERTY,
+                    "org.apache.logging.log4j.simple.SimpleLoggerContextFactory");
+        }
+        if (System.getProperty(SIMPLE_LOG_LEVEL_PROPERTY) == null) {
+            System.setProperty(SIMPLE_LOG_LEVEL_PROPERTY, "INFO");
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger("CommandLineLauncher");
+    private static final int EXIT_SUCCESS = 0;
+    private static final int EXIT_FAILURE = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final String USAGE = "usage: CommandLineLauncher [--steam <dir>] [--mode copy|link|delta] "
+            + "[--storage ssd|hdd] [--fetch] scan | update-all | install <ids> | remove <ids> "
+            + "| export-cache <file> | import-cache <file>";
+    private String pathToSteam;
+    private TransferMode transferMode;
+    private StorageType storageType;
+    private boolean isFetching = false;
+    private String command;
+    private Set<Integer> ids = new LinkedHashSet<>();
+    private String cacheFile;
+    private int exitCode = EXIT_SUCCESS;
+
+    public static void main(String[] args) {
+        CommandLineLauncher launcher = new CommandLineLauncher();
+        if (!launcher.parseArguments(args)) {
+            System.err.println(USAGE);
+            System.exit(EXIT_USAGE);
+        }
+        System.exit(launcher.run());
+    }
+
+    /**
+     * Returns {@code false} if the arguments are not a valid command.
+     */
+    private boolean parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if (arg.equals("--steam") && hasValue) {
+                pathToSteam = args[++i];
+            } else if (arg.equals("--mode") && hasValue) {
+                transferMode = TransferMode.fromSetting(args[++i]);
+            } else if (arg.equals("--storage") && hasValue) {
+                storageType = StorageType.fromSetting(args[++i]);
+            } else if (arg.equals("--fetch")) {
+                isFetching = true;
+            } else if (command == null) {
+                command = arg;
+            } else if ((command.equals("export-cache") || command.equals("import-cache")) && cacheFile == null) {
+                cacheFile = arg;
+            } else {
+                try {
+                    ids.add(Integer.valueOf(arg));
+                } catch (NumberFormatException e) {
+                    System.err.println("not a workshop id: " + arg);
+                    return false;
+                }
+            }
+        }
+        if (command == null) return false;
+        switch (command) {
+            case "scan":
+            case "update-all":
+                return ids.isEmpty();
+            case "install":
+            case "remove":
+                return !ids.isEmpty();
+            case "export-cache":
+            case "import-cache":
+                return cacheFile != null;
+            default:
+                return false;
+        }
+    }
+
+    private int run() {
+        if (cacheFile != null) return transferCache();
+        SettingsManager settingsManager = SettingsManager.getInstance();
+        if (pathToSteam == null) pathToSteam = settingsManager.getSetting(SettingsManager.STEAM_PATH);
+        if (pathToSteam == null) {
+            System.err.println("no Steam directory configured, pass it with --steam <dir>");
+            return EXIT_USAGE;
+        }
+        if (transferMode == null) {
+            transferMode = TransferMode.fromSetting(settingsManager.getSetting(SettingsManager.TRANSFER_MODE));
+        }
+        if (storageType == null) {
+            storageType = StorageType.fromSetting(settingsManager.getSetting(SettingsManager.TRANSFER_TARGET_STORAGE));
+        }
+        ModSyncEngine engine = new ModSyncEngine(Paths.get(pathToSteam));
+        try {
+            JSONObject result;
+            switch (command) {
+                case "scan":
+                    result = scan(engine);
+                    break;
+                case "update-all":
+                    result = updateAll(engine);
+                    break;
+                case "install":
+                    result = install(engine);
+                    break;
+                default:
+                    result = remove(engine);
+                    break;
+            }
+            result.put("command", command);
+            result.put("steam_path", engine.getPathToSteam().toString());
+            System.out.println(result.toString());
+        } catch (IOException | JSONException | InterruptedException | ExecutionException e) {
+            logger.error("{} failed", command, e);
+            return EXIT_FAILURE;
+        } finally {
+            engine.saveCaches();
+        }
+        return exitCode;
+    }
+
+    /**
+     * Exports or imports the workshop cache, which needs no Steam directory.
+     */
+    private int transferCache() {
+        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
+        try {
+            JSONObject result = new JSONObject();
+            if (command.equals("export-cache")) {
+                manager.exportToJson(Paths.get(cacheFile));
+                result.put("exported", manager.size());
+            } else {
+                result.put("imported", manager.importFromJson(Paths.get(cacheFile)));
+            }
+            result.put("command", command);
+            result.put("file", Paths.get(cacheFile).toAbsolutePath().toString());
+            System.out.println(result.toString());
+        } catch (IOException | JSONException e) {
+            logger.error("{} failed", command, e);
+            return EXIT_FAILURE;
+        }
+        return EXIT_SUCCESS;
+    }
+
+    private JSONObject scan(ModSyncEngine engine) throws IOException, JSONException {
+        ScanSnapshot inputSnapshot = engine.scanInput();
+        ScanSnapshot outputSnapshot = engine.scanOutput();
+        if (isFetching) {
+            Set<Integer> allIds = new LinkedHashSet<>(inputSnapshot.getIds());
+            allIds.addAll(outputSnapshot.getIds());
+            fetchMissingWorkshopItems(engine, allIds);
+        }
+        ModDiff diff = engine.diff(inputSnapshot, outputSnapshot);
+        JSONObject result = new JSONObject();
+        result.put("input", toJsonArray(inputSnapshot.getModFiles()));
+        result.put("output", toJsonArray(outputSnapshot.getModFiles()));
+        result.put("not_installed", new JSONArray(ModDiff.toList(diff.getNewIds())));
+        result.put("changed", new JSONArray(ModDiff.toList(diff.getUpdatedIds())));
+        result.put("installed_only", new JSONArray(ModDiff.toList(diff.getInstalledOnlyIds())));
+        return result;
+    }
+
+    private JSONObject updateAll(ModSyncEngine engine) throws IOException, JSONException, InterruptedException,
+            ExecutionException {
+        ScanSnapshot inputSnapshot = engine.scanInput();
+        List<Integer> idsOfChangedModFiles = engine.findChangedModFiles(inputSnapshot, engine.scanOutput());
+        List<ModFile> inputModFiles = new ArrayList<>();
+        idsOfChangedModFiles.forEach(id -> inputModFiles.add(inputSnapshot.get(id)));
+        JSONObject result = new JSONObject();
+        result.put("changed", new JSONArray(idsOfChangedModFiles));
+        result.put("transfer", transfer(engine, inputModFiles));
+        return result;
+    }
+
+    private JSONObject install(ModSyncEngine engine) throws IOException, JSONException, InterruptedException,
+            ExecutionException {
+        ScanSnapshot inputSnapshot = engine.scanInput();
+        List<ModFile> inputModFiles = new ArrayList<>();
+        JSONArray missing = new JSONArray();
+        for (Integer id : ids) {
+            ModFile inputModFile = inputSnapshot.get(id);
+            if (inputModFile == null) {
+                missing.put(id);
+            } else {
+                inputModFiles.add(inputModFile);
+            }
+        }
+        if (missing.length() > 0) exitCode = EXIT_FAILURE;
+        JSONObject result = new JSONObject();
+        result.put("missing", missing);
+        result.put("transfer", transfer(engine, inputModFiles));
+        return result;
+    }
+
+    private JSONObject remove(ModSyncEngine engine) throws IOException, JSONException {
+        ScanSnapshot outputSnapshot = engine.scanOutput();
+        List<ModFile> outputModFiles = new ArrayList<>();
+        JSONArray missing = new JSONArray();
+        for (Integer id : ids) {
+            ModFile outputModFile = outputSnapshot.get(id);
+            if (outputModFile == null) {
+                missing.put(id);
+            } else {
+                outputModFiles.add(outputModFile);
+            }
+        }
+        List<Integer> idsOfDeletedModFiles = engine.deleteModFiles(outputModFiles);
+        if (missing.length() > 0 || idsOfDeletedModFiles.size() < outputModFiles.size()) exitCode = EXIT_FAILURE;
+        JSONObject result = new JSONObject();
+        result.put("removed", new JSONArray(idsOfDeletedModFiles));
+        result.put("missing", missing);
+        return result;
+    }
+
+    private JSONObject transfer(ModSyncEngine engine, Collection<ModFile> inputModFiles)
+            throws InterruptedException, ExecutionException {
+        FileTransfer fileTransfer = engine.createFileTransfer(inputModFiles, storageType, transferMode);
+        TransferTaskInformation info = fileTransfer.transfer(() -> false,
+                (bytesCopied, totalBytes, message) -> logger.debug(message));
+        info.print();
+        info.saveReport();
+        if (info.hasFaultingFiles()) exitCode = EXIT_FAILURE;
+        return info.toJsonObject();
+    }
+
+    private void fetchMissingWorkshopItems(ModSyncEngine engine, Collection<Integer> workshopIds) {
+        try {
+            List<WorkshopItem> workshopItems = engine.fetchMissingWorkshopItems(workshopIds).join();
+            WorkshopCacheManager.getInstance().putAll(workshopItems);
+        } catch (RuntimeException e) {
+            logger.error("unable to fetch workshopItems, using the cached titles", e);
+        }
+    }
+
+    private static JSONArray toJsonArray(Collection<ModFile> modFiles) throws JSONException {
+        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
+        JSONArray array = new JSONArray();
+        for (ModFile modFile : modFiles) {
+            WorkshopItem item = manager.get(modFile.getId());
+            JSONObject obj = new JSONObject();
+            obj.put("id", modFile.getId());
+            obj.putOpt("title", (item != null) ? item.getTitle() : null);
+            obj.put("path", modFile.getPakFile().getAbsolutePath());
+            obj.put("size", modFile.getSize());
+            obj.put("last_modified", modFile.getDate().getTime());
+            array.put(obj);
+        }
+        return array;
+    }
+}
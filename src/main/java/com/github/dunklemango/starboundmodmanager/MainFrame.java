@@ -1,23 +1,29 @@
 package com.github.dunklemango.starboundmodmanager;
 
 import com.github.dunklemango.starboundmodmanager.data.ModFile;
-import com.github.dunklemango.starboundmodmanager.exceptions.ModFileGenerationException;
+import com.github.dunklemango.starboundmodmanager.data.ModFileTable;
 import com.github.dunklemango.starboundmodmanager.exceptions.ModFileNotFoundException;
 import com.github.dunklemango.starboundmodmanager.gui.cells.CheckBoxCell;
 import com.github.dunklemango.starboundmodmanager.gui.cells.RepresentingType;
 import com.github.dunklemango.starboundmodmanager.gui.checkboxes.CheckBoxManager;
 import com.github.dunklemango.starboundmodmanager.gui.checkboxes.InputCheckBoxManager;
 import com.github.dunklemango.starboundmodmanager.gui.checkboxes.OutputCheckBoxManager;
+import com.github.dunklemango.starboundmodmanager.scan.ModDirectoryWatcher;
+import com.github.dunklemango.starboundmodmanager.scan.ModScanner;
+import com.github.dunklemango.starboundmodmanager.scan.ScanSnapshot;
 import com.github.dunklemango.starboundmodmanager.storage.SettingsManager;
 import com.github.dunklemango.starboundmodmanager.storage.WorkshopCacheManager;
+import com.github.dunklemango.starboundmodmanager.sync.ModSyncEngine;
 import com.github.dunklemango.starboundmodmanager.transfer.FileTransferTask;
 import com.github.dunklemango.starboundmodmanager.transfer.TransferTaskInformation;
-import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
-import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItemManager;
+import com.github.dunklemango.starboundmodmanager.workshop.LookupFailureReason;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.ObservableSet;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -33,6 +39,7 @@ import javafx.scene.text.TextAlignment;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -42,7 +49,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class MainFrame extends Application {
     private static final Logger logger = LogManager.getLogger("Application");
@@ -50,19 +60,30 @@ public class MainFrame extends Application {
     private static final double FRAME_WIDTH = 500;
     private static final double FRAME_HEIGHT = 500;
     private static final double GRID_SIDE_PADDING = 25;
+    private static final int SCAN_CHUNK_SIZE = 50;
+    private static final int REVALIDATION_BATCH_SIZE = 100;
+    private static final Duration REVALIDATION_INTERVAL = Duration.hours(1);
     private static VBox buttonVBox = new VBox();
-    private static List<Integer> inputIds = new ArrayList<>();
-    private static List<Integer> outputIds = new ArrayList<>();
     private ObservableList<String> inputTitles = FXCollections.observableArrayList();
     private ObservableList<String> outputTitles = FXCollections.observableArrayList();
-    private ObservableSet<ModFile> inputDirList = FXCollections.observableSet();
-    private ObservableSet<ModFile> outputFileList = FXCollections.observableSet();
+    private ModFileTable inputTable = new ModFileTable();
+    private ModFileTable outputTable = new ModFileTable();
     private ListView<String> outputListView = new ListView<>(outputTitles);
     private ListView<String> inputListView = new ListView<>(inputTitles);
-    private static final Path relativeInputPath = Paths.get("SteamApps", "workshop", "content", "211820");
-    private static final Path relativeOutputPath = Paths.get("SteamApps", "common", "Starbound", "mods");
     private Path pathToSteam = Paths.get("D:", "Programs", "Steam");
     private Label pathToSteamLabel;
+    private final ExecutorService scanExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-scanner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Set<Integer> pendingWorkshopIds = new HashSet<>();
+    private ModDirectoryWatcher inputWatcher;
+    private ModDirectoryWatcher outputWatcher;
+    private int inputScanGeneration = 0;
+    private int outputScanGeneration = 0;
+    private FileTransferTask runningTransferTask;
+    private boolean isRevalidating = false;
 
     public static void main(String[] args) {
         launch(args);
@@ -92,14 +113,12 @@ public class MainFrame extends Application {
 
         loadSettings();
         logger.debug("settings loaded");
-        loadCachedWorkshopItems();
-        logger.debug("workshop-item-cache loaded");
-
-        File inputPathFile = getInputPath().toFile();
-        File outputPathFile = getOutputPath().toFile();
-
-        if (inputPathFile.exists()) addDirectoriesOfPath(inputPathFile, inputIds, inputDirList);
-        if (outputPathFile.exists()) addFilesOfPath(outputPathFile, inputIds, outputFileList);
+        // runs on the scanner thread ahead of the first scans, so the window is shown right away
+        scanExecutor.execute(() -> {
+            loadCachedWorkshopItems();
+            logger.debug("workshop-item-cache loaded");
+            Platform.runLater(this::startRevalidation);
+        });
 
         setupInputPanels(lowerInnerGridPane, primaryStage);
         setupOutputPanels(lowerInnerGridPane, primaryStage);
@@ -121,8 +140,8 @@ public class MainFrame extends Application {
             saveSettings();
             saveCachedWorkshopItems();
         });
-        updateAllTables();
         primaryStage.show();
+        updateAllTables();
     }
 
     private double getMaxHSize() {
@@ -159,12 +178,16 @@ public class MainFrame extends Application {
         grid.add(buttonChooseSteamPath, 0, 1);
     }
 
+    private ModSyncEngine getSyncEngine() {
+        return new ModSyncEngine(this.pathToSteam);
+    }
+
     private Path getInputPath() {
-        return this.pathToSteam.resolve(MainFrame.relativeInputPath);
+        return getSyncEngine().getInputPath();
     }
 
     private Path getOutputPath() {
-        return this.pathToSteam.resolve(MainFrame.relativeOutputPath);
+        return getSyncEngine().getOutputPath();
     }
 
     private void setupUpdateButton(GridPane grid, Stage primaryStage) {
@@ -175,28 +198,24 @@ public class MainFrame extends Application {
         Button updateButton = new Button("Update all");
         updateButton.setMinWidth(buttonVBox.getPrefWidth());
         updateButton.setOnAction(event -> {
-            ArrayList<Integer> idsOfFilesToTransfer = new ArrayList<>();
-            for (ModFile inputModFile : inputDirList) {
-                ModFile outputModFile;
-                try {
-                    outputModFile = getModFile(outputFileList, inputModFile.getId());
-                } catch (ModFileNotFoundException e) {
-                    continue;
-                }
-                if (inputModFile != null && outputModFile != null && outputModFile.getId().equals(inputModFile.getId())
-                        && inputModFile.isNewerThan(outputModFile)) {
-                    idsOfFilesToTransfer.add(inputModFile.getId());
-                }
-            }
-            if (!idsOfFilesToTransfer.isEmpty()) {
-                transferAlert.setContentText(fuseTitlesForDisplay(idsOfFilesToTransfer, RepresentingType.INPUT));
-                Optional<ButtonType> result = transferAlert.showAndWait();
-                if (result.get() == ButtonType.OK) {
-                    transferFiles(idsOfFilesToTransfer, primaryStage);
-                    resetCheckboxes();
-                    updateOutputTable();
-                }
-            }
+            ModSyncEngine engine = getSyncEngine();
+            ScanSnapshot inputSnapshot = new ScanSnapshot(engine.getInputPath(), inputTable.getModFiles());
+            ScanSnapshot outputSnapshot = new ScanSnapshot(engine.getOutputPath(), outputTable.getModFiles());
+            updateButton.setDisable(true);
+            CompletableFuture.supplyAsync(() -> engine.findChangedModFiles(inputSnapshot, outputSnapshot), scanExecutor)
+                    .whenComplete((idsOfFilesToTransfer, e) -> Platform.runLater(() -> {
+                        updateButton.setDisable(false);
+                        if (e != null) {
+                            logger.error("unable to compare the modFiles", e);
+                            return;
+                        }
+                        if (idsOfFilesToTransfer.isEmpty()) return;
+                        transferAlert.setContentText(fuseTitlesForDisplay(idsOfFilesToTransfer, RepresentingType.INPUT));
+                        Optional<ButtonType> result = transferAlert.showAndWait();
+                        if (result.get() == ButtonType.OK) {
+                            transferFiles(idsOfFilesToTransfer, primaryStage, info -> onTransferCompleted());
+                        }
+                    }));
         });
         grid.add(updateButton, 1, 3);
     }
@@ -226,17 +245,150 @@ public class MainFrame extends Application {
     }
 
     private void updateInputTable() {
-        inputIds.clear();
-        addDirectoriesOfPath(getInputPath().toFile(), inputIds, inputDirList);
+        int generation = ++inputScanGeneration;
+        inputTable.clear();
         inputTitles.clear();
-        inputTitles.addAll(WorkshopCacheManager.getInstance().getTitlesFromIds(inputIds));
+        ModSyncEngine engine = getSyncEngine();
+        // the watcher is started ahead of the scan, so no change in between is missed
+        watchInputPath(engine.getInputPath());
+        scanExecutor.execute(() -> addDirectoriesOfPath(engine, modFiles -> Platform.runLater(() -> {
+            if (generation == inputScanGeneration) addToTable(modFiles, inputTable, inputTitles);
+        })));
     }
 
     private void updateOutputTable() {
-        outputIds.clear();
-        addFilesOfPath(getOutputPath().toFile(), outputIds, outputFileList);
+        int generation = ++outputScanGeneration;
+        outputTable.clear();
         outputTitles.clear();
-        outputTitles.addAll(WorkshopCacheManager.getInstance().getTitlesFromIds(outputIds));
+        ModSyncEngine engine = getSyncEngine();
+        // the watcher is started ahead of the scan, so no change in between is missed
+        watchOutputPath(engine.getOutputPath());
+        scanExecutor.execute(() -> addFilesOfPath(engine, modFiles -> Platform.runLater(() -> {
+            if (generation == outputScanGeneration) addToTable(modFiles, outputTable, outputTitles);
+        })));
+    }
+
+    /**
+     * Rescans the mods directory, unless its watcher already applies the changes.
+     */
+    private void refreshOutputTable() {
+        if (outputWatcher == null) updateOutputTable();
+    }
+
+    private void watchInputPath(Path path) {
+        if (inputWatcher != null && inputWatcher.getRoot().equals(path)) return;
+        if (inputWatcher != null) inputWatcher.close();
+        inputWatcher = null;
+        scanExecutor.execute(() -> {
+            ModDirectoryWatcher watcher = createWatcher(path, RepresentingType.INPUT);
+            if (watcher == null) return;
+            Platform.runLater(() -> {
+                if (inputWatcher == null && getInputPath().equals(path)) {
+                    inputWatcher = watcher;
+                } else {
+                    watcher.close();
+                }
+            });
+        });
+    }
+
+    private void watchOutputPath(Path path) {
+        if (outputWatcher != null && outputWatcher.getRoot().equals(path)) return;
+        if (outputWatcher != null) outputWatcher.close();
+        outputWatcher = null;
+        scanExecutor.execute(() -> {
+            ModDirectoryWatcher watcher = createWatcher(path, RepresentingType.OUTPUT);
+            if (watcher == null) return;
+            Platform.runLater(() -> {
+                if (outputWatcher == null && getOutputPath().equals(path)) {
+                    outputWatcher = watcher;
+                } else {
+                    watcher.close();
+                }
+            });
+        });
+    }
+
+    /**
+     * Starts watching the path, returns {@code null} if the path can not be watched.
+     */
+    private ModDirectoryWatcher createWatcher(Path path, RepresentingType type) {
+        boolean isInput = type == RepresentingType.INPUT;
+        try {
+            ModDirectoryWatcher watcher = new ModDirectoryWatcher(path, isInput,
+                    changedEntries -> applyChangedEntries(path, type, changedEntries),
+                    () -> Platform.runLater(() -> {
+                        if (isInput && getInputPath().equals(path)) updateInputTable();
+                        if (!isInput && getOutputPath().equals(path)) updateOutputTable();
+                    }));
+            watcher.start();
+            logger.debug("watching {}", path);
+            return watcher;
+        } catch (IOException e) {
+            logger.error("unable to watch {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Rescans only the changed entries of the path and applies them to the matching table.
+     * Called on the thread of the watcher.
+     */
+    private void applyChangedEntries(Path path, RepresentingType type, Set<Path> changedEntries) {
+        boolean isInput = type == RepresentingType.INPUT;
+        Map<Integer, ModFile> changes = new HashMap<>();
+        for (Path entry : changedEntries) {
+            String name = entry.getFileName().toString();
+            Integer id = isInput ? ModScanner.toModId(name) : ModScanner.toModIdOfModFile(name);
+            if (id == null) continue;
+            changes.put(id, isInput ? ModScanner.scanWorkshopItem(entry, id) : ModScanner.scanModFile(entry, id));
+        }
+        if (changes.isEmpty()) return;
+        Platform.runLater(() -> {
+            if (isInput && getInputPath().equals(path)) {
+                applyChanges(changes, inputTable, inputTitles);
+            } else if (!isInput && getOutputPath().equals(path)) {
+                applyChanges(changes, outputTable, outputTitles);
+            }
+        });
+    }
+
+    /**
+     * Applies rescanned modFiles to a table, a {@code null} modFile removes the id from the table.
+     * Has to be called on the JavaFX thread.
+     */
+    private void applyChanges(Map<Integer, ModFile> changes, ModFileTable table, ObservableList<String> titles) {
+        logger.debug("applying changes: {}", changes);
+        List<ModFile> addedModFiles = new ArrayList<>();
+        changes.forEach((id, modFile) -> {
+            if (modFile == null) {
+                int row = table.remove(id);
+                if (row >= 0) titles.remove(row);
+            } else if (!table.replace(modFile)) {
+                addedModFiles.add(modFile);
+            }
+        });
+        if (!addedModFiles.isEmpty()) addToTable(addedModFiles, table, titles);
+    }
+
+    /**
+     * Adds a chunk of scanned modFiles to a table, using the workshop id as placeholder title until the
+     * workshopItem is cached. Has to be called on the JavaFX thread.
+     */
+    private void addToTable(List<ModFile> modFiles, ModFileTable table, ObservableList<String> titles) {
+        List<Integer> idsOfModFiles = new ArrayList<>();
+        modFiles.forEach(modFile -> {
+            // the watcher may have added the modFile while the scan was running
+            if (table.add(modFile)) idsOfModFiles.add(modFile.getId());
+        });
+        titles.addAll(WorkshopCacheManager.getInstance().getTitlesFromIds(idsOfModFiles));
+        retrieveMissingWorkshopItems(idsOfModFiles);
+    }
+
+    private void refreshTitles() {
+        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
+        inputTitles.setAll(manager.getTitlesFromIds(inputTable.getIdList()));
+        outputTitles.setAll(manager.getTitlesFromIds(outputTable.getIdList()));
     }
 
     private void setupTransferButton(GridPane grid, Stage primaryStage) {
@@ -246,35 +398,34 @@ public class MainFrame extends Application {
 
         Button transferButton = new Button("Transfer Selected");
         transferButton.setMinWidth(buttonVBox.getPrefWidth());
-        WorkshopCacheManager wcm = WorkshopCacheManager.getInstance();
         transferButton.setOnAction(event -> {
-            List<Integer> idsOfFilesToTransfer = new ArrayList<>();
-            inputIds.forEach(id -> {
-                InputCheckBoxManager manager = InputCheckBoxManager.getInstance();
-                boolean isCheckboxSet = manager.get(wcm.get(id).getTitle());
-                logger.debug("checkbox id: {}, value: {}", id, isCheckboxSet);
-                if (isCheckboxSet) {
-                    idsOfFilesToTransfer.add(id);
-                }
-            });
+            List<Integer> idsOfFilesToTransfer = InputCheckBoxManager.getInstance().getCheckedIds(inputTable);
             logger.debug("dirs of files to transfer: {}", idsOfFilesToTransfer);
             if (!idsOfFilesToTransfer.isEmpty()) {
                 transferAlert.setContentText(fuseTitlesForDisplay(idsOfFilesToTransfer ,RepresentingType.INPUT));
                 Optional<ButtonType> result = transferAlert.showAndWait();
                 if (result.get() == ButtonType.OK) {
                     logger.debug("starting transfer..");
-                    transferFiles(idsOfFilesToTransfer, primaryStage);
-                    resetCheckboxes();
-                    updateOutputTable();
+                    transferFiles(idsOfFilesToTransfer, primaryStage, info -> onTransferCompleted());
                 }
             }
         });
         grid.add(transferButton, 0, 3);
     }
 
-    private void transferFiles(List<Integer> idsOfFilesToTransfer, Stage primaryStage) {
+    /**
+     * Transfers the modFiles in the background and shows the progress in a non-modal dialog.
+     * The consumer is called on the JavaFX thread once the transfer has ended, also if it was cancelled or failed.
+     * Only one transfer runs at a time, further requests while it runs are ignored.
+     */
+    private void transferFiles(List<Integer> idsOfFilesToTransfer, Stage primaryStage,
+                               Consumer<TransferTaskInformation> completionConsumer) {
+        if (runningTransferTask != null) {
+            logger.info("a transfer is already running, ignoring transfer of {}", idsOfFilesToTransfer);
+            return;
+        }
         final Stage dialog = new Stage();
-        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.initModality(Modality.NONE);
         dialog.initOwner(primaryStage);
         dialog.setTitle("File-transfer");
 
@@ -288,65 +439,61 @@ public class MainFrame extends Application {
 
         grid.add(new Text("Progress of transfer:"), 0, 0);
 
-        List<File> inputFiles = new ArrayList<>();
-        List<File> outputFiles = new ArrayList<>();
-
-        logger.debug("input dirs: {}", inputDirList);
+        logger.debug("input dirs: {}", inputTable);
 
+        List<ModFile> inputModFiles = new ArrayList<>();
         for (Integer id : idsOfFilesToTransfer) {
-            File inputDir;
             try {
-                inputDir = getModFile(inputDirList, id).getFile();
-
+                inputModFiles.add(getModFile(inputTable, id));
             } catch (ModFileNotFoundException e) {
                 logger.error("modFile with title \"{}\" not found", id, e);
-                continue;
-            }
-            if (inputDir != null && inputDir.exists()) {
-                logger.debug("input dir exists!");
-                File[] subFiles = inputDir.listFiles((subDir, subName) -> subName.toLowerCase().endsWith(".pak"));
-                logger.debug("files in input dir: {}", Arrays.asList(subFiles));
-                if (subFiles != null && subFiles.length == 1) {
-                    File inputFile = subFiles[0];
-                    File outputFile = this.getOutputPath().resolve(id + ModFile.MOD_FILE_EXTENSION).toFile();
-                    logger.debug("writing modFile: {}", outputFile);
-                    if (inputFile.exists()) {
-                        logger.debug("input file \"{}\" and output path \"{}\" exists", inputFile,
-                                outputFile.getAbsolutePath());
-                        inputFiles.add(inputFile);
-                        outputFiles.add(outputFile);
-                    }
-                }
             }
         }
-        logger.debug("inputFiles: {}", inputFiles);
-        logger.debug("outputFiles: {}", outputFiles);
-        FileTransferTask fileTransferTask = new FileTransferTask(inputFiles, outputFiles);
+        FileTransferTask fileTransferTask = new FileTransferTask(getSyncEngine().createFileTransfer(inputModFiles));
 
-        progressBar.progressProperty().addListener((obs, ov, nv) -> {
-            if (nv.doubleValue() == 1.0) {
-                dialog.hide();
-            }
-        });
-        fileTransferTask.transferFiles(progressBar);
         grid.add(progressBar, 0, 1);
-        fileTransferTask.setOnSucceeded(event -> {
-            resetCheckboxes();
-            updateOutputTable();
+        Label progressLabel = new Label();
+        progressLabel.textProperty().bind(fileTransferTask.messageProperty());
+        grid.add(progressLabel, 0, 2);
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(event -> {
+            cancelButton.setDisable(true);
+            fileTransferTask.cancel();
         });
-        try {
-            TransferTaskInformation info = fileTransferTask.get();
+        GridPane.setHalignment(cancelButton, HPos.RIGHT);
+        grid.add(cancelButton, 0, 3);
+        dialog.setOnCloseRequest(event -> fileTransferTask.cancel());
+
+        fileTransferTask.setOnFailed(event -> logger.error("transfer failed", fileTransferTask.getException()));
+        fileTransferTask.setOnCancelled(event -> logger.info("transfer cancelled, waiting for it to stop"));
+        // reported once the workers stopped, a failed or cancelled transfer with the files transferred until then
+        fileTransferTask.getCompletion().thenAcceptAsync(info -> {
             info.print();
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Unable to print faulting files of transfer task.", e);
-        }
+            scanExecutor.execute(info::saveReport);
+            completeTransfer(dialog, info, completionConsumer);
+        }, Platform::runLater);
+
+        runningTransferTask = fileTransferTask;
+        fileTransferTask.transferFiles(progressBar);
 
-        Scene dialogScene = new Scene(grid, 300, 100);
+        Scene dialogScene = new Scene(grid, 300, 170);
         dialog.setScene(dialogScene);
         dialog.setResizable(false);
         dialog.show();
     }
 
+    private void completeTransfer(Stage dialog, TransferTaskInformation info,
+                                  Consumer<TransferTaskInformation> completionConsumer) {
+        runningTransferTask = null;
+        dialog.hide();
+        completionConsumer.accept(info);
+    }
+
+    private void onTransferCompleted() {
+        resetCheckboxes();
+        refreshOutputTable();
+    }
+
     private void setupClearButton(GridPane grid) {
         Alert clearAlert = new Alert(Alert.AlertType.CONFIRMATION);
         clearAlert.setTitle("Confirmation of file-deletion");
@@ -355,28 +502,22 @@ public class MainFrame extends Application {
         Button clearButton = new Button("Delete selected");
         clearButton.setMinWidth(buttonVBox.getPrefWidth());
         clearButton.setOnAction(event -> {
-            ArrayList<Integer> idsOfFilesToDelete = new ArrayList<>();
-            outputIds.forEach(id -> {
-                OutputCheckBoxManager manager = OutputCheckBoxManager.getInstance();
-                WorkshopCacheManager wcm = WorkshopCacheManager.getInstance();
-                boolean isCheckboxSet = manager.get(wcm.get(id).getTitle());
-                if (isCheckboxSet) {
-                    idsOfFilesToDelete.add(id);
-                }
-            });
+            List<Integer> idsOfFilesToDelete = OutputCheckBoxManager.getInstance().getCheckedIds(outputTable);
             if (!idsOfFilesToDelete.isEmpty()) {
                 clearAlert.setContentText(fuseTitlesForDisplay(idsOfFilesToDelete, RepresentingType.OUTPUT));
                 Optional<ButtonType> result = clearAlert.showAndWait();
                 if (result.get() == ButtonType.OK) {
+                    List<ModFile> modFilesToDelete = new ArrayList<>();
                     idsOfFilesToDelete.forEach(name -> {
                         try {
-                            deletePakFile(getModFile(outputFileList, name).getFile());
+                            modFilesToDelete.add(getModFile(outputTable, name));
                         } catch (ModFileNotFoundException e) {
                             e.printStackTrace();
                         }
                     });
+                    getSyncEngine().deleteModFiles(modFilesToDelete);
                     resetCheckboxes();
-                    updateOutputTable();
+                    refreshOutputTable();
                 }
             }
         });
@@ -388,20 +529,16 @@ public class MainFrame extends Application {
         StringBuilder builder = new StringBuilder();
         idsOfFiles.forEach(id -> {
                 if (id != null) {
-                    builder.append(manager.get(id).getTitle() + "\r\n");
+                    builder.append(manager.getTitle(id) + "\r\n");
                 }
         });
         return builder.toString();
     }
 
-    private ModFile getModFile(Collection<ModFile> collection, Integer id) throws ModFileNotFoundException {
-        logger.debug("searching for modFileId: {}", id);
-        for (ModFile modFile : collection) {
-            Integer workshopItemId = modFile.getId();
-            logger.debug("contained modFileId: {}", workshopItemId);
-            if (workshopItemId.equals(id)) return modFile;
-        }
-        throw new ModFileNotFoundException(WorkshopCacheManager.getInstance().get(id).getTitle());
+    private ModFile getModFile(ModFileTable table, Integer id) throws ModFileNotFoundException {
+        ModFile modFile = table.get(id);
+        if (modFile != null) return modFile;
+        throw new ModFileNotFoundException(WorkshopCacheManager.getInstance().getTitle(id));
     }
 
     private void saveSettings() {
@@ -412,8 +549,7 @@ public class MainFrame extends Application {
     }
 
     private void saveCachedWorkshopItems() {
-        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
-        manager.saveData();
+        getSyncEngine().saveCaches();
     }
 
     private void loadSettings() {
@@ -423,8 +559,8 @@ public class MainFrame extends Application {
     }
 
     private void loadCachedWorkshopItems() {
-        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
-        manager.loadData();
+        // the manager loads its data when it is created
+        WorkshopCacheManager.getInstance();
     }
 
     private void setupOutputPanels(GridPane grid, Stage primaryStage) {
@@ -432,7 +568,8 @@ public class MainFrame extends Application {
         rightTitle.setFont(Font.font("Tahoma", FontWeight.NORMAL, 20));
         grid.add(rightTitle, 1, 0);
 
-        outputListView.setCellFactory((view) -> new CheckBoxCell(RepresentingType.OUTPUT, outputListView));
+        outputListView.setCellFactory((view) -> new CheckBoxCell(RepresentingType.OUTPUT, outputListView, outputTable));
+        outputListView.setContextMenu(createSelectionMenu(OutputCheckBoxManager.getInstance(), outputListView));
         grid.add(outputListView, 1, 1);
     }
 
@@ -441,14 +578,28 @@ public class MainFrame extends Application {
         leftTitle.setFont(Font.font("Tahoma", FontWeight.NORMAL, 20));
         grid.add(leftTitle, 0, 0);
 
-        inputListView.setCellFactory((view) -> new CheckBoxCell(RepresentingType.INPUT, inputListView));
+        inputListView.setCellFactory((view) -> new CheckBoxCell(RepresentingType.INPUT, inputListView, inputTable));
+        inputListView.setContextMenu(createSelectionMenu(InputCheckBoxManager.getInstance(), inputListView));
         grid.add(inputListView, 0, 1);
     }
 
-    private void deletePakFile(File file) {
-        if (file != null && !file.isDirectory() && file.getAbsolutePath().endsWith(".pak")) {
-            file.delete();
-        }
+    private ContextMenu createSelectionMenu(CheckBoxManager manager, ListView<String> listView) {
+        MenuItem checkAllItem = new MenuItem("Select all");
+        checkAllItem.setOnAction(event -> {
+            manager.checkAll();
+            listView.refresh();
+        });
+        MenuItem clearItem = new MenuItem("Select none");
+        clearItem.setOnAction(event -> {
+            manager.clear();
+            listView.refresh();
+        });
+        MenuItem invertItem = new MenuItem("Invert selection");
+        invertItem.setOnAction(event -> {
+            manager.invert();
+            listView.refresh();
+        });
+        return new ContextMenu(checkAllItem, clearItem, invertItem);
     }
 
     private void updateSteamPathField() {
@@ -458,105 +609,100 @@ public class MainFrame extends Application {
         }
     }
 
-    private void checkDirectoryCorrect(File path) {
-        if (path == null) throw new IllegalArgumentException("Path was null.");
-        if (!path.isDirectory()) throw new IllegalArgumentException("Path is not a directory.");
-    }
-
-    private Integer fileToModId(File file) throws NumberFormatException {
-        String fileName = file.getName().replace(ModFile.MOD_FILE_EXTENSION, "");
-        if (fileName.matches("[0-9]+")) {
-            return Integer.valueOf(fileName);
-        } else {
-            logger.info("name of modFile contains illegal characters: \"{}\"", fileName);
-            throw new NumberFormatException("name of modFile contains illegal characters");
-        }
-    }
-
-    private void addDirectoriesOfPath(File path, List<Integer> idsOfDirs, ObservableSet<ModFile> dirSet) {
-        logger.debug("adding directories of path {}", path);
+    /**
+     * Scans the workshop downloads and hands the found modFiles to the consumer in chunks.
+     */
+    private void addDirectoriesOfPath(ModSyncEngine engine, Consumer<List<ModFile>> chunkConsumer) {
+        logger.debug("adding directories of path {}", engine.getInputPath());
         try {
-            checkDirectoryCorrect(path);
-        } catch (IllegalArgumentException e) {
-            logger.error("input directory was not correct: {}", path.getAbsolutePath(), e);
-            return;
-        }
-        File[] files = path.listFiles((dir, name) -> dir.isDirectory());
-        logger.debug("dirs of path {}", (files != null) ? Arrays.asList(files) : "null");
-        List<Integer> workshopIds = new ArrayList<>();
-        for (File dir : files) {
-            ModFile modFile;
-            try {
-                Integer modId = fileToModId(dir);
-                modFile = new ModFile(dir, modId);
-                workshopIds.add(modId);
-                dirSet.add(modFile);
-            } catch (ModFileGenerationException | NumberFormatException e) {
-                continue;
-            }
+            ScanSnapshot snapshot = engine.scanInput(SCAN_CHUNK_SIZE, chunkConsumer);
+            logger.debug("dirs of path {}: {}", engine.getInputPath(), snapshot.getModFiles());
+        } catch (IOException e) {
+            logger.error("input directory was not correct: {}", engine.getInputPath().toAbsolutePath(), e);
         }
+    }
 
+    /**
+     * Fetches all workshopIds that are neither cached nor already being fetched in the background.
+     * The fetched items are put into the cache on the JavaFX thread, which then refreshes the titles of both tables.
+     */
+    private void retrieveMissingWorkshopItems(List<Integer> workshopIds) {
         WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
         logger.debug("all workshopIds: {}", workshopIds);
-        logger.debug("cached workshopIds: {}", manager.getCachedIds());
         List<Integer> workshopIdsToRetrieve = new ArrayList<>(workshopIds);
-        workshopIdsToRetrieve.removeIf(id -> manager.containsKey(id));
+        workshopIdsToRetrieve.removeIf(id -> !manager.isLookupDue(id) || pendingWorkshopIds.contains(id));
         logger.debug("new workshopIds: {}", workshopIdsToRetrieve);
 
-        List<WorkshopItem> workshopItemsToRetrieve = new ArrayList<>();
-        workshopIdsToRetrieve.forEach(id -> workshopItemsToRetrieve.add(new WorkshopItem(id)));
+        if (workshopIdsToRetrieve.isEmpty()) return;
+        pendingWorkshopIds.addAll(workshopIdsToRetrieve);
+        getSyncEngine().fetchMissingWorkshopItems(workshopIdsToRetrieve)
+                .whenComplete((workshopItems, e) -> Platform.runLater(() -> {
+                    pendingWorkshopIds.removeAll(workshopIdsToRetrieve);
+                    if (e != null) {
+                        logger.error("unable to retrieve workshopItems with ids: {}", workshopIdsToRetrieve, e);
+                        manager.putFailedLookups(workshopIdsToRetrieve, LookupFailureReason.REQUEST_FAILED);
+                        return;
+                    }
+                    manager.putAll(workshopItems);
+                    refreshTitles();
+                }));
+    }
 
-        if (!workshopIdsToRetrieve.isEmpty()) {
-            WorkshopItemManager.loadWorkshopDataFromSteam(workshopItemsToRetrieve);
-            manager.putAll(workshopItemsToRetrieve);
-        }
+    /**
+     * Revalidates the stale workshopItems now and then every {@link #REVALIDATION_INTERVAL}.
+     */
+    private void startRevalidation() {
+        revalidateWorkshopItems();
+        Timeline revalidationTimeline = new Timeline(new KeyFrame(REVALIDATION_INTERVAL,
+                event -> revalidateWorkshopItems()));
+        revalidationTimeline.setCycleCount(Animation.INDEFINITE);
+        revalidationTimeline.play();
+    }
 
-        idsOfDirs.addAll(workshopIds);
-        logger.debug("names of workshopItems: {}", manager.getTitlesFromIds(workshopIds));
+    /**
+     * Refetches the workshopItems that were fetched longer than the TTL ago, one batch after the other,
+     * so the revalidation neither blocks the JavaFX thread nor crowds out the requests for missing items.
+     */
+    private void revalidateWorkshopItems() {
+        if (isRevalidating) return;
+        ModSyncEngine engine = getSyncEngine();
+        List<Integer> staleIds = WorkshopCacheManager.getInstance().getStaleIds(engine.getWorkshopCacheTtlMillis());
+        staleIds.removeAll(pendingWorkshopIds);
+        if (staleIds.isEmpty()) return;
+        logger.info("revalidating {} stale workshopItems", staleIds.size());
+        isRevalidating = true;
+        revalidateWorkshopItems(engine, staleIds, 0);
     }
 
-    private void addFilesOfPath(File path, List<Integer> idsOfFiles, ObservableSet<ModFile> fileSet) {
-        logger.debug("adding files of path {}", path);
-        try {
-            checkDirectoryCorrect(path);
-        } catch (IllegalArgumentException e) {
-            logger.error("output directory was not correct: {}", path.getAbsolutePath(), e);
+    private void revalidateWorkshopItems(ModSyncEngine engine, List<Integer> staleIds, int from) {
+        if (from >= staleIds.size()) {
+            isRevalidating = false;
             return;
         }
-        File[] files = path.listFiles((subFile, name) -> name.toLowerCase().endsWith(ModFile.MOD_FILE_EXTENSION));
-        logger.debug("files on path: {}", (files != null) ? Arrays.asList(files) : "null");
-        List<Integer> workshopIds = new ArrayList<>();
-        if (files != null) {
-            for (File file : files) {
-                ModFile modFile;
-                try {
-                    Integer modId = fileToModId(file);
-                    modFile = new ModFile(file, modId);
-                    workshopIds.add(modId);
-                    fileSet.add(modFile);
-                } catch (ModFileGenerationException | NumberFormatException e) {
-                    continue;
-                }
+        List<Integer> batch = staleIds.subList(from, Math.min(from + REVALIDATION_BATCH_SIZE, staleIds.size()));
+        engine.fetchWorkshopItems(batch).whenComplete((workshopItems, e) -> Platform.runLater(() -> {
+            if (e != null) {
+                logger.error("unable to revalidate workshopItems with ids: {}", batch, e);
+                isRevalidating = false;
+                return;
             }
-        }
-
-        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
-        logger.debug("all workshopIds: {}", workshopIds);
-        logger.debug("cached workshopIds: {}", manager.getCachedIds());
-        List<Integer> workshopIdsToRetrieve = new ArrayList<>(workshopIds);
-        workshopIdsToRetrieve.removeIf(id -> manager.containsKey(id));
-        logger.debug("new workshopIds: {}", workshopIdsToRetrieve);
-
-        List<WorkshopItem> workshopItemsToRetrieve = new ArrayList<>();
-        workshopIdsToRetrieve.forEach(id -> workshopItemsToRetrieve.add(new WorkshopItem(id)));
+            List<Integer> idsOfChangedItems = WorkshopCacheManager.getInstance().revalidate(workshopItems);
+            if (!idsOfChangedItems.isEmpty()) refreshTitles();
+            revalidateWorkshopItems(engine, staleIds, from + REVALIDATION_BATCH_SIZE);
+        }));
+    }
 
-        if (!workshopIdsToRetrieve.isEmpty()) {
-            WorkshopItemManager.loadWorkshopDataFromSteam(workshopItemsToRetrieve);
-            manager.putAll(workshopItemsToRetrieve);
+    /**
+     * Scans the mods directory and hands the found modFiles to the consumer in chunks.
+     */
+    private void addFilesOfPath(ModSyncEngine engine, Consumer<List<ModFile>> chunkConsumer) {
+        logger.debug("adding files of path {}", engine.getOutputPath());
+        try {
+            ScanSnapshot snapshot = engine.scanOutput(SCAN_CHUNK_SIZE, chunkConsumer);
+            logger.debug("files on path {}: {}", engine.getOutputPath(), snapshot.getModFiles());
+        } catch (IOException e) {
+            logger.error("output directory was not correct: {}", engine.getOutputPath().toAbsolutePath(), e);
         }
-
-        idsOfFiles.addAll(workshopIds);
-        logger.debug("names of workshopItems: {}", manager.getTitlesFromIds(workshopIds));
     }
 
 }
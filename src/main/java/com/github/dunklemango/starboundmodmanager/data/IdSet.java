@@ -0,0 +1,132 @@
+package com.github.dunklemango.starboundmodmanager.data;
+
+import java.util.Arrays;
+
+/**
+ * A set of workshop ids, stored as an open-addressing hash table of primitive ints.
+ */
+public class IdSet {
+    private static final int INITIAL_CAPACITY = 16;
+    private int[] slotIds;
+    // whether a slot is used, as 0 is a valid id
+    private boolean[] isUsed;
+    private int size;
+
+    public IdSet() {
+        clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return findSlot(id) >= 0;
+    }
+
+    /**
+     * Adds the id, returns {@code false} if the set already contains it.
+     */
+    public boolean add(int id) {
+        if (contains(id)) return false;
+        if ((size + 1) * 2 > slotIds.length) rehash(slotIds.length * 2);
+        putIntoSlot(id);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the id, returns {@code false} if the set does not contain it.
+     */
+    public boolean remove(int id) {
+        int slot = findSlot(id);
+        if (slot < 0) return false;
+        int mask = slotIds.length - 1;
+        // moves the following ids of the probe sequence back, so no lookup stops at the freed slot
+        int freeSlot = slot;
+        for (int next = (slot + 1) & mask; isUsed[next]; next = (next + 1) & mask) {
+            int home = hash(slotIds[next]) & mask;
+            if (((next - home) & mask) >= ((next - freeSlot) & mask)) {
+                slotIds[freeSlot] = slotIds[next];
+                freeSlot = next;
+            }
+        }
+        isUsed[freeSlot] = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Adds the id if the set does not contain it and removes it otherwise. Returns whether the set contains it now.
+     */
+    public boolean toggle(int id) {
+        if (remove(id)) return false;
+        add(id);
+        return true;
+    }
+
+    /**
+     * Empties the set in constant time, by dropping the table instead of clearing its slots.
+     */
+    public void clear() {
+        slotIds = new int[INITIAL_CAPACITY];
+        isUsed = new boolean[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public int[] toArray() {
+        int[] ids = new int[size];
+        int index = 0;
+        for (int slot = 0; slot < slotIds.length; slot++) {
+            if (isUsed[slot]) ids[index++] = slotIds[slot];
+        }
+        return ids;
+    }
+
+    private int findSlot(int id) {
+        int mask = slotIds.length - 1;
+        for (int slot = hash(id) & mask; isUsed[slot]; slot = (slot + 1) & mask) {
+            if (slotIds[slot] == id) return slot;
+        }
+        return -1;
+    }
+
+    private void putIntoSlot(int id) {
+        int mask = slotIds.length - 1;
+        int slot = hash(id) & mask;
+        while (isUsed[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        slotIds[slot] = id;
+        isUsed[slot] = true;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldSlotIds = slotIds;
+        boolean[] oldIsUsed = isUsed;
+        slotIds = new int[capacity];
+        isUsed = new boolean[capacity];
+        for (int slot = 0; slot < oldSlotIds.length; slot++) {
+            if (oldIsUsed[slot]) putIntoSlot(oldSlotIds[slot]);
+        }
+    }
+
+    /**
+     * Spreads the ids, as workshop ids of one era share their high bits.
+     */
+    private static int hash(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        int[] ids = toArray();
+        Arrays.sort(ids);
+        return Arrays.toString(ids);
+    }
+}
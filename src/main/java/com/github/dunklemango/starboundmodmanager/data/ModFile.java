@@ -8,12 +8,29 @@ import java.util.Date;
 public class ModFile {
     public static final String MOD_FILE_EXTENSION = ".pak";
     private final File file;
+    private final File pakFile;
+    private final long size;
     private final Date date;
-    private Integer id;
+    private final Integer id;
 
     public ModFile(File file, Integer id) throws ModFileGenerationException {
         this.file = file;
-        this.date = generateDate(file);
+        this.pakFile = findPakFile(file);
+        this.size = pakFile.length();
+        this.date = new Date(pakFile.lastModified());
+        this.id = id;
+    }
+
+    /**
+     * Creates the modFile from attributes that were already read while scanning.
+     * @param file the directory of a workshopItem or the modFile itself
+     * @param pakFile the modFile itself or the modFile inside of the directory
+     */
+    public ModFile(File file, Integer id, File pakFile, long size, long lastModified) {
+        this.file = file;
+        this.pakFile = pakFile;
+        this.size = size;
+        this.date = new Date(lastModified);
         this.id = id;
     }
 
@@ -22,21 +39,21 @@ public class ModFile {
         return String.format("{%s, %s, %s}", this.file, this.date, this.id);
     }
 
-    private Date generateDate(File path) throws ModFileGenerationException {
+    private File findPakFile(File path) throws ModFileGenerationException {
         File target = path;
         if (path.isDirectory()) {
-            File[] content = path.listFiles((subDir, name) -> name.toLowerCase().endsWith(".pak"));
-            if (content.length == 0) throw new ModFileGenerationException();
+            File[] content = path.listFiles((subDir, name) -> name.toLowerCase().endsWith(MOD_FILE_EXTENSION));
+            if (content == null || content.length == 0) throw new ModFileGenerationException();
             target = content[0];
         }
-        return new Date(target.lastModified());
+        return target;
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj == null || !obj.getClass().equals(this.getClass())) return false;
         ModFile otherModFile = (ModFile) obj;
-        return otherModFile.hashCode() == this.hashCode();
+        return otherModFile.id.equals(this.id);
     }
 
     @Override
@@ -52,6 +69,14 @@ public class ModFile {
         return file;
     }
 
+    public File getPakFile() {
+        return pakFile;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
     public Date getDate() {
         return date;
     }
@@ -0,0 +1,167 @@
+package com.github.dunklemango.starboundmodmanager.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The modFiles of a table in row order, indexed by their workshop id.
+ * The index is an open-addressing hash table of primitive ints, so a lookup neither boxes the id nor scans the rows.
+ */
+public class ModFileTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private ModFile[] modFiles = new ModFile[INITIAL_CAPACITY];
+    private int size = 0;
+    // slots of the index, a slot holds the row + 1 of its id, 0 marks an empty slot
+    private int[] slotIds = new int[INITIAL_CAPACITY * 2];
+    private int[] slotRows = new int[INITIAL_CAPACITY * 2];
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Returns the modFile with the id, or {@code null} if the table does not contain it.
+     */
+    public ModFile get(int id) {
+        int row = indexOf(id);
+        return (row >= 0) ? modFiles[row] : null;
+    }
+
+    /**
+     * Returns the row of the id, or -1 if the table does not contain it.
+     */
+    public int indexOf(int id) {
+        int mask = slotIds.length - 1;
+        for (int slot = hash(id) & mask; slotRows[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotIds[slot] == id) return slotRows[slot] - 1;
+        }
+        return -1;
+    }
+
+    public int getId(int row) {
+        if (row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return ids[row];
+    }
+
+    public ModFile getModFile(int row) {
+        if (row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return modFiles[row];
+    }
+
+    /**
+     * Appends the modFile as new row, returns {@code false} if the table already contains its id.
+     */
+    public boolean add(ModFile modFile) {
+        int id = modFile.getId();
+        if (contains(id)) return false;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            modFiles = Arrays.copyOf(modFiles, size * 2);
+        }
+        ids[size] = id;
+        modFiles[size] = modFile;
+        size++;
+        if (size * 2 > slotIds.length) {
+            rebuildIndex(slotIds.length * 2);
+        } else {
+            putIntoIndex(id, size - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the modFile with the same id in its row, returns {@code false} if the table does not contain the id.
+     */
+    public boolean replace(ModFile modFile) {
+        int row = indexOf(modFile.getId());
+        if (row < 0) return false;
+        modFiles[row] = modFile;
+        return true;
+    }
+
+    /**
+     * Removes the row of the id, moving all following rows up by one. Returns the removed row, or -1.
+     */
+    public int remove(int id) {
+        int row = indexOf(id);
+        if (row < 0) return -1;
+        System.arraycopy(ids, row + 1, ids, row, size - row - 1);
+        System.arraycopy(modFiles, row + 1, modFiles, row, size - row - 1);
+        size--;
+        modFiles[size] = null;
+        rebuildIndex(slotIds.length);
+        return row;
+    }
+
+    public void clear() {
+        Arrays.fill(modFiles, 0, size, null);
+        size = 0;
+        Arrays.fill(slotRows, 0);
+    }
+
+    /**
+     * Returns the ids in row order.
+     */
+    public int[] getIds() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Returns the ids in row order, boxed for APIs working on lists.
+     */
+    public List<Integer> getIdList() {
+        List<Integer> idList = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            idList.add(ids[row]);
+        }
+        return idList;
+    }
+
+    /**
+     * Returns the modFiles in row order.
+     */
+    public List<ModFile> getModFiles() {
+        return new ArrayList<>(Arrays.asList(modFiles).subList(0, size));
+    }
+
+    private void putIntoIndex(int id, int row) {
+        int mask = slotIds.length - 1;
+        int slot = hash(id) & mask;
+        while (slotRows[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotIds[slot] = id;
+        slotRows[slot] = row + 1;
+    }
+
+    private void rebuildIndex(int capacity) {
+        slotIds = new int[capacity];
+        slotRows = new int[capacity];
+        for (int row = 0; row < size; row++) {
+            putIntoIndex(ids[row], row);
+        }
+    }
+
+    /**
+     * Spreads the ids, as workshop ids of one era share their high bits.
+     */
+    private static int hash(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return getModFiles().toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.dunklemango.starboundmodmanager.format;
+
+public final class ByteFormatter {
+    private static final String[] UNITS = {"B", "KB", "MB", "GB", "TB"};
+    private static final int UNIT_STEP = 1024;
+
+    private ByteFormatter() {
+
+    }
+
+    public static String formatBytes(long bytes) {
+        double value = bytes;
+        int unit = 0;
+        while (value >= UNIT_STEP && unit < UNITS.length - 1) {
+            value /= UNIT_STEP;
+            unit++;
+        }
+        return (unit == 0) ? bytes + " " + UNITS[0] : String.format("%.1f %s", value, UNITS[unit]);
+    }
+
+    public static String formatDuration(long seconds) {
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
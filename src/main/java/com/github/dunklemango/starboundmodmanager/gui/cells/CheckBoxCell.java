@@ -1,16 +1,23 @@
 package com.github.dunklemango.starboundmodmanager.gui.cells;
 
+import com.github.dunklemango.starboundmodmanager.data.ModFileTable;
 import com.github.dunklemango.starboundmodmanager.gui.checkboxes.CheckBoxManager;
 import com.github.dunklemango.starboundmodmanager.gui.checkboxes.InputCheckBoxManager;
 import com.github.dunklemango.starboundmodmanager.gui.checkboxes.OutputCheckBoxManager;
+import com.github.dunklemango.starboundmodmanager.storage.WorkshopCacheManager;
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,16 +26,23 @@ public class CheckBoxCell extends ListCell<String> {
     private final RepresentingType type;
     private HBox hBox = new HBox();
     private Label label = new Label("(empty)");
+    private ImageView thumbnailView = new ImageView();
+    private StackPane thumbnailPane = new StackPane(thumbnailView);
     private Pane pane = new Pane();
     private CheckBox checkBox = new CheckBox();
     private CheckBoxManager checkBoxManager;
     private final ListView<String> parent;
+    // the rows of the table are the rows of the list, so the row of a cell yields its workshop id
+    private final ModFileTable table;
     String lastItem;
+    // read by the loader threads to skip thumbnails of rows that are no longer shown
+    private volatile Integer shownId;
 
-    public CheckBoxCell(RepresentingType type, ListView<String> parent) {
+    public CheckBoxCell(RepresentingType type, ListView<String> parent, ModFileTable table) {
         super();
         this.type = type;
         this.parent = parent;
+        this.table = table;
 
         init();
     }
@@ -44,13 +58,19 @@ public class CheckBoxCell extends ListCell<String> {
         }
 
         checkBox.setOnAction(event -> {
-            checkBoxManager.put(getItem(), getChecked());
+            if (hasRow()) checkBoxManager.setChecked(table.getId(getIndex()), getChecked());
         });
 
         label.setWrapText(true);
         label.setPadding(new Insets(0, 2, 0, 2));
-        hBox.getChildren().addAll(label, pane, checkBox);
-        label.setMaxWidth(parent.getWidth() - 60);
+        thumbnailView.setFitWidth(ThumbnailLoader.DISPLAY_SIZE);
+        thumbnailView.setFitHeight(ThumbnailLoader.DISPLAY_SIZE);
+        thumbnailView.setPreserveRatio(true);
+        thumbnailPane.setMinSize(ThumbnailLoader.DISPLAY_SIZE, ThumbnailLoader.DISPLAY_SIZE);
+        thumbnailPane.setMaxSize(ThumbnailLoader.DISPLAY_SIZE, ThumbnailLoader.DISPLAY_SIZE);
+        hBox.getChildren().addAll(thumbnailPane, label, pane, checkBox);
+        hBox.setAlignment(Pos.CENTER_LEFT);
+        label.setMaxWidth(parent.getWidth() - 60 - ThumbnailLoader.DISPLAY_SIZE);
         hBox.setHgrow(pane, Priority.ALWAYS);
         hBox.setPadding(new Insets(5, 0, 5 ,0));
     }
@@ -67,8 +87,34 @@ public class CheckBoxCell extends ListCell<String> {
             label.setText(item!=null ? item : "<null>");
             setGraphic(hBox);
         }
-        Boolean isSelected = checkBoxManager.get(item);
-        checkBox.setSelected(isSelected != null ? isSelected : false);
+        checkBox.setSelected(hasRow() && checkBoxManager.isChecked(table.getId(getIndex())));
+        showThumbnail(hasRow() ? table.getId(getIndex()) : null);
+    }
+
+    /**
+     * Shows the thumbnail of the workshopItem, loading it in the background unless it is held in memory.
+     * Only the cells of visible rows are updated, so scrolling past rows does not load their thumbnails.
+     */
+    private void showThumbnail(Integer id) {
+        shownId = id;
+        if (id == null) {
+            thumbnailView.setImage(null);
+            return;
+        }
+        ThumbnailLoader loader = ThumbnailLoader.getInstance();
+        WorkshopItem item = WorkshopCacheManager.getInstance().get(id);
+        String previewUrl = (item != null) ? item.getPreviewUrl() : null;
+        Image image = loader.getCachedImage(previewUrl);
+        thumbnailView.setImage(image);
+        if (image != null || item == null) return;
+        loader.load(id, previewUrl, () -> id.equals(shownId), loadedImage -> {
+            if (id.equals(shownId)) thumbnailView.setImage(loadedImage);
+        });
+    }
+
+    private boolean hasRow() {
+        int row = getIndex();
+        return !isEmpty() && row >= 0 && row < table.size();
     }
 
     public boolean getChecked() {
@@ -0,0 +1,170 @@
+package com.github.dunklemango.starboundmodmanager.gui.cells;
+
+import com.github.dunklemango.starboundmodmanager.storage.ThumbnailCacheManager;
+import com.github.dunklemango.starboundmodmanager.workshop.FailedLookup;
+import com.github.dunklemango.starboundmodmanager.workshop.LookupFailureReason;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Loads the thumbnails shown by the cells. Recently shown thumbnails are kept decoded in memory, all others are
+ * read from the {@link ThumbnailCacheManager} or downloaded, and decoded off the JavaFX thread.
+ */
+public final class ThumbnailLoader {
+    private static final Logger logger = LogManager.getLogger("ThumbnailLoader");
+    public static final double DISPLAY_SIZE = 32;
+    private static final int MEMORY_CACHE_SIZE = 256;
+    private static final int LOADER_THREADS = 2;
+    private static ThumbnailLoader instance;
+    // keyed by the preview url, so a changed preview image of a workshopItem is loaded anew
+    private final Map<String, Image> imagesOfPreviewUrls = new LinkedHashMap<String, Image>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MEMORY_CACHE_SIZE;
+        }
+    };
+    // requests of the ids that are loaded right now, a further request of the same id joins them
+    private final Map<Integer, List<Request>> pendingRequests = new HashMap<>();
+    // ids whose preview image could not be loaded, they are tried again once their backoff passed
+    private final Map<Integer, FailedLookup> failedLoads = new HashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "thumbnail-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static class Request {
+        private final BooleanSupplier isStillWanted;
+        private final Consumer<Image> imageConsumer;
+
+        private Request(BooleanSupplier isStillWanted, Consumer<Image> imageConsumer) {
+            this.isStillWanted = isStillWanted;
+            this.imageConsumer = imageConsumer;
+        }
+    }
+
+    private ThumbnailLoader() {
+
+    }
+
+    public static ThumbnailLoader getInstance() {
+        if (instance == null) {
+            instance = new ThumbnailLoader();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the decoded thumbnail of the preview image if it is held in memory, or {@code null}.
+     */
+    public synchronized Image getCachedImage(String previewUrl) {
+        return (previewUrl != null) ? imagesOfPreviewUrls.get(previewUrl) : null;
+    }
+
+    /**
+     * Loads the thumbnail in the background and hands it to the consumer on the JavaFX thread.
+     * The load is skipped if the supplier tells, by the time a loader thread picks it up, that the thumbnail is no
+     * longer wanted, as the cell was scrolled out of view or reused for another row.
+     * Nothing is loaded for items without a preview image, or while the backoff of a failed load did not pass.
+     */
+    public void load(Integer id, String previewUrl, BooleanSupplier isStillWanted, Consumer<Image> imageConsumer) {
+        synchronized (this) {
+            if (previewUrl == null) return;
+            FailedLookup failedLoad = failedLoads.get(id);
+            if (failedLoad != null && !failedLoad.isDue(System.currentTimeMillis())) return;
+            List<Request> requests = pendingRequests.get(id);
+            if (requests != null) {
+                requests.add(new Request(isStillWanted, imageConsumer));
+                return;
+            }
+            requests = new ArrayList<>();
+            requests.add(new Request(isStillWanted, imageConsumer));
+            pendingRequests.put(id, requests);
+        }
+        executor.execute(() -> {
+            // checked and removed at once, so no request can join the skipped ones in between
+            synchronized (this) {
+                if (!isAnyRequestWanted(id)) {
+                    pendingRequests.remove(id);
+                    return;
+                }
+            }
+            Image image = loadImage(id, previewUrl);
+            List<Request> requests;
+            synchronized (this) {
+                requests = pendingRequests.remove(id);
+                if (image != null) {
+                    imagesOfPreviewUrls.put(previewUrl, image);
+                    failedLoads.remove(id);
+                } else {
+                    failedLoads.computeIfAbsent(id, FailedLookup::new)
+                            .fail(LookupFailureReason.REQUEST_FAILED, System.currentTimeMillis());
+                }
+            }
+            if (image == null) return;
+            Platform.runLater(() -> requests.forEach(request -> request.imageConsumer.accept(image)));
+        });
+    }
+
+    /**
+     * Must be called while holding the lock of the loader.
+     */
+    private boolean isAnyRequestWanted(Integer id) {
+        for (Request request : pendingRequests.get(id)) {
+            if (request.isStillWanted.getAsBoolean()) return true;
+        }
+        return false;
+    }
+
+    private static Image loadImage(Integer id, String previewUrl) {
+        ThumbnailCacheManager manager = ThumbnailCacheManager.getInstance();
+        File file = manager.get(id, previewUrl);
+        byte[] thumbnail;
+        try {
+            thumbnail = (file != null) ? readThumbnail(file) : null;
+            if (thumbnail == null) {
+                file = manager.fetch(id, previewUrl);
+                thumbnail = Files.readAllBytes(file.toPath());
+            }
+        } catch (IOException e) {
+            logger.error("unable to load the preview image of workshopItem {}", id, e);
+            return null;
+        }
+        // decodes right here, on the loader thread
+        Image image = new Image(new ByteArrayInputStream(thumbnail), DISPLAY_SIZE, DISPLAY_SIZE, true, true);
+        if (image.isError()) {
+            logger.error("unable to decode thumbnail {}", file, image.getException());
+            return null;
+        }
+        return image;
+    }
+
+    /**
+     * Reads the stored thumbnail, or returns {@code null} if it was evicted since it was looked up.
+     */
+    private static byte[] readThumbnail(File file) throws IOException {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (NoSuchFileException e) {
+            logger.debug("thumbnail {} was evicted, downloading it again", file);
+            return null;
+        }
+    }
+}
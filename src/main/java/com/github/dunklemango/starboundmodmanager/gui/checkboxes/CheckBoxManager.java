@@ -1,24 +1,65 @@
 package com.github.dunklemango.starboundmodmanager.gui.checkboxes;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableMap;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import com.github.dunklemango.starboundmodmanager.data.IdSet;
+import com.github.dunklemango.starboundmodmanager.data.ModFileTable;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The checked rows of a table, keyed by workshop id.
+ * Only the ids that differ from the default state are stored, so toggling a row, checking or unchecking all rows
+ * and inverting the selection all take constant time.
+ */
 public abstract class CheckBoxManager {
-    protected ObservableMap<String, Boolean> filesChecked = FXCollections.observableHashMap();
+    // ids whose state differs from the default state
+    protected IdSet toggledIds = new IdSet();
+    // the default state, true after all rows were checked
+    protected boolean isCheckedByDefault = false;
+
+    public boolean isChecked(int id) {
+        return toggledIds.contains(id) != isCheckedByDefault;
+    }
+
+    public void setChecked(int id, boolean isChecked) {
+        if (isChecked != isCheckedByDefault) {
+            toggledIds.add(id);
+        } else {
+            toggledIds.remove(id);
+        }
+    }
+
+    /**
+     * Flips the checkbox of the id and returns its new state.
+     */
+    public boolean toggle(int id) {
+        return toggledIds.toggle(id) != isCheckedByDefault;
+    }
+
+    public void checkAll() {
+        toggledIds.clear();
+        isCheckedByDefault = true;
+    }
 
     public void clear() {
-        filesChecked.clear();
+        toggledIds.clear();
+        isCheckedByDefault = false;
     }
 
-    public void put(String checkBoxItemString, Boolean isChecked) {
-        filesChecked.put(checkBoxItemString, isChecked);
+    public void invert() {
+        isCheckedByDefault = !isCheckedByDefault;
     }
 
-    public boolean get(String checkBoxItemString) {
-        Boolean tmp = filesChecked.get(checkBoxItemString);
-        return (tmp == null) ? false : tmp;
+    /**
+     * Returns the ids of the checked rows of the table, in row order.
+     */
+    public List<Integer> getCheckedIds(ModFileTable table) {
+        List<Integer> checkedIds = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            int id = table.getId(row);
+            if (isChecked(id)) checkedIds.add(id);
+        }
+        return checkedIds;
     }
 
     public abstract void debugLogCheckBoxes(String prefix);
@@ -20,6 +20,6 @@ public final class InputCheckBoxManager extends CheckBoxManager {
 
     @Override
     public void debugLogCheckBoxes(String prefix) {
-        logger.debug("{}: {}", prefix, this.filesChecked);
+        logger.debug("{}: checked by default: {}, toggled: {}", prefix, isCheckedByDefault, toggledIds);
     }
 }
@@ -0,0 +1,138 @@
+package com.github.dunklemango.starboundmodmanager.scan;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a directory in the background and reports which of its direct entries were created, modified or deleted.
+ * Events are coalesced until the directory was quiet for a moment, so a burst of writes is reported only once.
+ */
+public class ModDirectoryWatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger("ModDirectoryWatcher");
+    private static final long COALESCE_MILLIS = 500;
+    private final Path root;
+    private final boolean isWatchingSubdirectories;
+    private final Consumer<Set<Path>> changeConsumer;
+    private final Runnable overflowHandler;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    /**
+     * @param isWatchingSubdirectories whether changes inside of the direct subdirectories are reported as changes of
+     *                                 the subdirectory itself, as needed for the workshop content directory
+     * @param changeConsumer receives the changed direct entries of the root, called on the watcher thread
+     * @param overflowHandler called on the watcher thread when events were lost and the root has to be rescanned
+     */
+    public ModDirectoryWatcher(Path root, boolean isWatchingSubdirectories, Consumer<Set<Path>> changeConsumer,
+                               Runnable overflowHandler) throws IOException {
+        this.root = root;
+        this.isWatchingSubdirectories = isWatchingSubdirectories;
+        this.changeConsumer = changeConsumer;
+        this.overflowHandler = overflowHandler;
+        this.watchService = root.getFileSystem().newWatchService();
+        register(root);
+        if (isWatchingSubdirectories) {
+            try (DirectoryStream<Path> subdirectories = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path subdirectory : subdirectories) {
+                    register(subdirectory);
+                }
+            }
+        }
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::watch, "directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private void register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirectories.put(key, dir);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<Path> changedEntries = new HashSet<>();
+                boolean isOverflowed = false;
+                while (key != null) {
+                    isOverflowed |= collectChanges(key, changedEntries);
+                    key = watchService.poll(COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (isOverflowed) {
+                    logger.info("events of {} were lost, rescanning", root);
+                    overflowHandler.run();
+                } else if (!changedEntries.isEmpty()) {
+                    logger.debug("changed entries of {}: {}", root, changedEntries);
+                    changeConsumer.accept(changedEntries);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("stopped watching {}", root);
+        }
+    }
+
+    /**
+     * Adds the direct entries of the root affected by the events of the key and returns whether events were lost.
+     */
+    private boolean collectChanges(WatchKey key, Set<Path> changedEntries) {
+        Path dir = watchedDirectories.get(key);
+        boolean isOverflowed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                isOverflowed = true;
+                continue;
+            }
+            Path entry = dir.resolve((Path) event.context());
+            if (dir.equals(root)) {
+                changedEntries.add(entry);
+                if (isWatchingSubdirectories && event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(entry)) {
+                    try {
+                        register(entry);
+                    } catch (IOException e) {
+                        logger.error("unable to watch {}", entry, e);
+                    }
+                }
+            } else {
+                changedEntries.add(dir);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+        return isOverflowed;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.error("unable to stop watching {}", root, e);
+        }
+    }
+}
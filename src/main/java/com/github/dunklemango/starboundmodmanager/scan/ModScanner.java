@@ -0,0 +1,204 @@
+package com.github.dunklemango.starboundmodmanager.scan;
+
+import com.github.dunklemango.starboundmodmanager.data.ModFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Scans the workshop content directory and the mods directory in a single pass.
+ * The attributes of every entry are taken from the directory walk itself, so no file is listed or read twice.
+ */
+public final class ModScanner {
+    private static final Logger logger = LogManager.getLogger("ModScanner");
+    private static final int SCAN_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService SCAN_EXECUTOR = Executors.newFixedThreadPool(SCAN_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "mod-scanner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ModScanner() {
+
+    }
+
+    public static ScanSnapshot scanWorkshopContent(Path root) throws IOException {
+        return scanWorkshopContent(root, Integer.MAX_VALUE, chunk -> { });
+    }
+
+    /**
+     * Scans every workshopItem directory of the root, reading the directories in parallel.
+     * The found modFiles are handed to the consumer in scan order, in chunks of up to {@code chunkSize}.
+     */
+    public static ScanSnapshot scanWorkshopContent(Path root, int chunkSize, Consumer<List<ModFile>> chunkConsumer)
+            throws IOException {
+        Map<Path, BasicFileAttributes> entries = listEntries(root);
+        List<CompletableFuture<ModFile>> futures = new ArrayList<>();
+        entries.forEach((dir, attributes) -> {
+            if (!attributes.isDirectory()) return;
+            Integer id = toModId(dir.getFileName().toString());
+            if (id == null) return;
+            futures.add(CompletableFuture.supplyAsync(() -> scanWorkshopItemDirectory(dir, id), SCAN_EXECUTOR));
+        });
+
+        List<ModFile> modFiles = new ArrayList<>();
+        List<ModFile> chunk = new ArrayList<>();
+        for (CompletableFuture<ModFile> future : futures) {
+            ModFile modFile = future.join();
+            if (modFile == null) continue;
+            modFiles.add(modFile);
+            chunk.add(modFile);
+            if (chunk.size() >= chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) chunkConsumer.accept(chunk);
+        return new ScanSnapshot(root, modFiles);
+    }
+
+    public static ScanSnapshot scanModsDirectory(Path root) throws IOException {
+        return scanModsDirectory(root, Integer.MAX_VALUE, chunk -> { });
+    }
+
+    /**
+     * Scans every modFile named after its workshop id in the root.
+     * The found modFiles are handed to the consumer in scan order, in chunks of up to {@code chunkSize}.
+     */
+    public static ScanSnapshot scanModsDirectory(Path root, int chunkSize, Consumer<List<ModFile>> chunkConsumer)
+            throws IOException {
+        List<ModFile> modFiles = new ArrayList<>();
+        List<ModFile> chunk = new ArrayList<>();
+        for (Map.Entry<Path, BasicFileAttributes> entry : listEntries(root).entrySet()) {
+            if (!entry.getValue().isRegularFile()) continue;
+            Integer id = toModIdOfModFile(entry.getKey().getFileName().toString());
+            if (id == null) continue;
+            ModFile modFile = toModFile(entry.getKey(), id, entry.getKey(), entry.getValue());
+            modFiles.add(modFile);
+            chunk.add(modFile);
+            if (chunk.size() >= chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) chunkConsumer.accept(chunk);
+        return new ScanSnapshot(root, modFiles);
+    }
+
+    /**
+     * Scans a single workshopItem directory, returns {@code null} if it does not exist or contains no modFile.
+     */
+    public static ModFile scanWorkshopItem(Path dir, Integer id) {
+        if (!Files.isDirectory(dir)) return null;
+        return scanWorkshopItemDirectory(dir, id);
+    }
+
+    /**
+     * Scans a single modFile, returns {@code null} if it does not exist.
+     */
+    public static ModFile scanModFile(Path file, Integer id) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? toModFile(file, id, file, attributes) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the modFile of the first pak in the directory, or {@code null} if there is none.
+     */
+    private static ModFile scanWorkshopItemDirectory(Path dir, Integer id) {
+        Map<Path, BasicFileAttributes> entries;
+        try {
+            entries = listEntries(dir);
+        } catch (IOException e) {
+            logger.error("directory of workshopItem {} could not be scanned", id, e);
+            return null;
+        }
+        ModFile modFile = null;
+        for (Map.Entry<Path, BasicFileAttributes> entry : entries.entrySet()) {
+            if (!entry.getValue().isRegularFile() || !isModFileName(entry.getKey().getFileName().toString())) continue;
+            if (modFile != null) {
+                logger.info("directory of workshopItem {} contains more than one modFile, using {}", id,
+                        modFile.getPakFile());
+                break;
+            }
+            modFile = toModFile(dir, id, entry.getKey(), entry.getValue());
+        }
+        return modFile;
+    }
+
+    private static ModFile toModFile(Path path, Integer id, Path pakPath, BasicFileAttributes attributes) {
+        return new ModFile(path.toFile(), id, pakPath.toFile(), attributes.size(),
+                attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Lists the direct entries of the directory together with the attributes delivered by the walk.
+     * Links are followed, so linked modFiles are listed with the attributes of their target.
+     */
+    private static Map<Path, BasicFileAttributes> listEntries(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) throw new NotDirectoryException(dir.toString());
+        Map<Path, BasicFileAttributes> entries = new LinkedHashMap<>();
+        Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                entries.put(file, attributes);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.error("unable to read attributes of {}", file, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+    private static boolean isModFileName(String fileName) {
+        return fileName.toLowerCase().endsWith(ModFile.MOD_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the workshop id the name of a modFile in the mods directory stands for, or {@code null} if there is none.
+     */
+    public static Integer toModIdOfModFile(String fileName) {
+        if (!isModFileName(fileName)) return null;
+        return toModId(fileName.substring(0, fileName.length() - ModFile.MOD_FILE_EXTENSION.length()));
+    }
+
+    /**
+     * Returns the workshop id the name stands for, or {@code null} if it is not a workshop id.
+     */
+    public static Integer toModId(String name) {
+        if (!name.matches("[0-9]+")) {
+            logger.info("name of modFile contains illegal characters: \"{}\"", name);
+            return null;
+        }
+        try {
+            return Integer.valueOf(name);
+        } catch (NumberFormatException e) {
+            logger.info("name of modFile is out of range: \"{}\"", name);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.dunklemango.starboundmodmanager.scan;
+
+import com.github.dunklemango.starboundmodmanager.data.ModFile;
+import com.github.dunklemango.starboundmodmanager.data.ModFileTable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Result of a single scan of a directory, holding the found modFiles in the order they were scanned.
+ * The modFiles are also kept sorted by id, so single ids are found by binary search and two snapshots can be
+ * compared in one merge pass.
+ */
+public class ScanSnapshot {
+    private final Path root;
+    private final List<ModFile> modFiles;
+    private final int[] sortedIds;
+    private final ModFile[] sortedModFiles;
+
+    /**
+     * Creates the snapshot, a later modFile replaces an earlier one with the same id.
+     */
+    public ScanSnapshot(Path root, List<ModFile> modFiles) {
+        this.root = root;
+        ModFileTable table = new ModFileTable();
+        modFiles.forEach(modFile -> {
+            if (!table.add(modFile)) table.replace(modFile);
+        });
+        this.modFiles = table.getModFiles();
+        this.sortedModFiles = this.modFiles.toArray(new ModFile[0]);
+        Arrays.sort(sortedModFiles, Comparator.comparingInt(ModFile::getId));
+        this.sortedIds = new int[sortedModFiles.length];
+        for (int i = 0; i < sortedModFiles.length; i++) {
+            sortedIds[i] = sortedModFiles[i].getId();
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the modFile with the id, or {@code null} if the snapshot does not contain it.
+     */
+    public ModFile get(int id) {
+        int index = Arrays.binarySearch(sortedIds, id);
+        return (index >= 0) ? sortedModFiles[index] : null;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    /**
+     * Returns the modFiles in scan order.
+     */
+    public Collection<ModFile> getModFiles() {
+        return Collections.unmodifiableCollection(modFiles);
+    }
+
+    /**
+     * Returns the ids in scan order.
+     */
+    public List<Integer> getIds() {
+        List<Integer> ids = new ArrayList<>(modFiles.size());
+        modFiles.forEach(modFile -> ids.add(modFile.getId()));
+        return ids;
+    }
+
+    /**
+     * Returns the ids in ascending order.
+     */
+    public int[] getSortedIds() {
+        return sortedIds.clone();
+    }
+
+    /**
+     * Returns the modFile at the index of the ascending ids.
+     */
+    public ModFile getSortedModFile(int index) {
+        return sortedModFiles[index];
+    }
+
+    public int size() {
+        return sortedIds.length;
+    }
+}
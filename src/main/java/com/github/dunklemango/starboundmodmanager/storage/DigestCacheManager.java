@@ -0,0 +1,159 @@
+package com.github.dunklemango.starboundmodmanager.storage;
+
+import com.github.dunklemango.starboundmodmanager.data.ModFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches content digests of modFiles, keyed by their path and only valid for the size and modification time
+ * they were computed for. A digest is only computed again once the size or modification time changed.
+ */
+public final class DigestCacheManager {
+    private static final Logger logger = LogManager.getLogger("DigestCacheManager");
+    private static final String FILE_PATH = FileManager.DIR_PATH + "\\digestCache.json";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    // MD5 is only used to detect changed content, it is fast and its width makes accidental collisions negligible
+    private static final String DIGEST_ALGORITHM = "MD5";
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final String PARSE_PATH = "path";
+    private static final String PARSE_SIZE = "size";
+    private static final String PARSE_LAST_MODIFIED = "lastModified";
+    private static final String PARSE_DIGEST = "digest";
+    // one direct buffer per hashing thread, reused for every file it hashes
+    private static final ThreadLocal<ByteBuffer> readBuffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+    private static DigestCacheManager instance;
+    private boolean directoriesCreated;
+    private boolean isChanged = false;
+    private Map<String, JSONObject> digestsOfPaths = new ConcurrentHashMap<>();
+
+    private DigestCacheManager() {
+        directoriesCreated = FileManager.createDirectories(FileManager.DIR_PATH);
+        loadData();
+    }
+
+    public static synchronized DigestCacheManager getInstance() {
+        if (instance == null) {
+            instance = new DigestCacheManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns whether both modFiles have the same content. Files of different size are never hashed.
+     */
+    public boolean isContentEqual(ModFile modFile, ModFile otherModFile) throws IOException {
+        if (modFile.getSize() != otherModFile.getSize()) return false;
+        return getDigest(modFile).equals(getDigest(otherModFile));
+    }
+
+    /**
+     * Returns the hex digest of the pak of the modFile, computing it only if the cached one is outdated.
+     */
+    public String getDigest(ModFile modFile) throws IOException {
+        File pakFile = modFile.getPakFile();
+        String path = pakFile.getAbsolutePath();
+        long lastModified = modFile.getDate().getTime();
+        JSONObject cachedDigest = digestsOfPaths.get(path);
+        if (cachedDigest != null && cachedDigest.optLong(PARSE_SIZE) == modFile.getSize()
+                && cachedDigest.optLong(PARSE_LAST_MODIFIED) == lastModified) {
+            return cachedDigest.optString(PARSE_DIGEST);
+        }
+        String digest = computeDigest(pakFile.toPath());
+        try {
+            JSONObject digestJson = new JSONObject();
+            digestJson.put(PARSE_PATH, path);
+            digestJson.put(PARSE_SIZE, modFile.getSize());
+            digestJson.put(PARSE_LAST_MODIFIED, lastModified);
+            digestJson.put(PARSE_DIGEST, digest);
+            digestsOfPaths.put(path, digestJson);
+            isChanged = true;
+        } catch (JSONException e) {
+            logger.error("unable to convert digest of {} to JSON", path, e);
+        }
+        return digest;
+    }
+
+    /**
+     * Hashes the file through a direct buffer, so its content is never copied onto the heap. The file is not mapped,
+     * as a mapping stays until it is garbage collected and meanwhile blocks replacing or truncating the file on Windows.
+     */
+    private static String computeDigest(Path path) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("digest algorithm " + DIGEST_ALGORITHM + " is not available", e);
+        }
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = readBuffers.get();
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                messageDigest.update(buffer);
+                buffer.clear();
+            }
+            logger.debug("hashed {} ({} bytes) in {} ms", path, size, (System.nanoTime() - startTime) / 1000000);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    public void loadData() {
+        Path path = new File(FILE_PATH).toPath();
+        if (!directoriesCreated || !Files.exists(path)) return;
+        try {
+            for (String line : Files.readAllLines(path)) {
+                if (line.isEmpty()) continue;
+                try {
+                    JSONObject digestJson = new JSONObject(line);
+                    digestsOfPaths.put(digestJson.getString(PARSE_PATH), digestJson);
+                } catch (JSONException e) {
+                    logger.error("skipping unreadable digest entry: {}", line, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("{} could not be read.", FILE_PATH, e);
+        }
+    }
+
+    /**
+     * Writes the digests to a temporary file and atomically replaces the cache with it, if any digest changed.
+     */
+    public void saveData() {
+        if (!directoriesCreated || !isChanged) return;
+        Path path = new File(FILE_PATH).toPath();
+        Path tempPath = new File(FILE_PATH + TEMP_FILE_SUFFIX).toPath();
+        List<String> lines = new ArrayList<>();
+        digestsOfPaths.values().forEach(digestJson -> lines.add(digestJson.toString()));
+        try {
+            Files.write(tempPath, lines);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            isChanged = false;
+        } catch (IOException e) {
+            logger.error("{} could not be written.", FILE_PATH, e);
+        }
+    }
+}
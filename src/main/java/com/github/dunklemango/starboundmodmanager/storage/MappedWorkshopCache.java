@@ -0,0 +1,249 @@
+package com.github.dunklemango.starboundmodmanager.storage;
+
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read-only view of a binary workshop cache file, mapped into memory. Items are decoded one at a time on access,
+ * opening the file only checks that all offsets and lengths stay within their sections.
+ * <pre>
+ * header   magic, version, count, record size, index offset, records offset, strings offset, strings length
+ * index    count * (id, record offset), sorted by id
+ * records  count * (id, time_updated, file_size, fetched_at, title offset, title length,
+ *                   preview_url offset, preview_url length)
+ * strings  the UTF-8 bytes of all titles and preview urls
+ * </pre>
+ * All numbers are big-endian ints or longs. Offsets in the header are absolute, record offsets are relative
+ * to the records and string offsets relative to the strings. A string length of -1 marks a missing string.
+ */
+final class MappedWorkshopCache {
+    static final int MAGIC = 0x534D4D43;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8 * 4;
+    private static final int INDEX_ENTRY_SIZE = 2 * 4;
+    private static final int RECORD_SIZE = 4 + 3 * 8 + 4 * 4;
+    private static final int RECORD_TIME_UPDATED = 4;
+    private static final int RECORD_FILE_SIZE = 12;
+    private static final int RECORD_FETCHED_AT = 20;
+    private static final int RECORD_TITLE = 28;
+    private static final int RECORD_PREVIEW_URL = 36;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int indexOffset;
+    private final int recordsOffset;
+    private final int stringsOffset;
+    private final int stringsLength;
+
+    private MappedWorkshopCache(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a binary workshop cache");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) throw new IOException("unsupported binary workshop cache version " + version);
+        this.count = buffer.getInt(8);
+        int recordSize = buffer.getInt(12);
+        this.indexOffset = buffer.getInt(16);
+        this.recordsOffset = buffer.getInt(20);
+        this.stringsOffset = buffer.getInt(24);
+        this.stringsLength = buffer.getInt(28);
+        if (count < 0 || recordSize != RECORD_SIZE || indexOffset < HEADER_SIZE || recordsOffset < HEADER_SIZE
+                || stringsOffset < HEADER_SIZE || stringsLength < 0
+                || (long) indexOffset + (long) count * INDEX_ENTRY_SIZE > buffer.capacity()
+                || (long) recordsOffset + (long) count * RECORD_SIZE > buffer.capacity()
+                || (long) stringsOffset + stringsLength > buffer.capacity()) {
+            throw new IOException("binary workshop cache is truncated or corrupt");
+        }
+        validateRecords();
+    }
+
+    /**
+     * Checks that the ids of the index ascend and that every record and string lies within its section, so a
+     * corrupt file is rejected as a whole instead of failing on access.
+     */
+    private void validateRecords() throws IOException {
+        for (int position = 0; position < count; position++) {
+            int id = getId(position);
+            if (position > 0 && id <= getId(position - 1)) {
+                throw new IOException("binary workshop cache index is not sorted at position " + position);
+            }
+            int recordOffset = buffer.getInt(indexOffset + position * INDEX_ENTRY_SIZE + 4);
+            if (recordOffset < 0 || (long) recordOffset + RECORD_SIZE > (long) count * RECORD_SIZE) {
+                throw new IOException("record of workshopItem " + id + " is out of the records");
+            }
+            int record = recordsOffset + recordOffset;
+            if (buffer.getInt(record) != id) {
+                throw new IOException("record of workshopItem " + id + " belongs to another id");
+            }
+            if (!isStringInBounds(record + RECORD_TITLE) || !isStringInBounds(record + RECORD_PREVIEW_URL)) {
+                throw new IOException("string of workshopItem " + id + " is out of the strings");
+            }
+        }
+    }
+
+    private boolean isStringInBounds(int reference) {
+        int offset = buffer.getInt(reference);
+        int length = buffer.getInt(reference + 4);
+        if (length == -1) return true;
+        return length >= 0 && offset >= 0 && (long) offset + length <= stringsLength;
+    }
+
+    /**
+     * Maps the file and validates it. The file stays mapped until the view is garbage collected.
+     */
+    static MappedWorkshopCache open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedWorkshopCache(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns the id at the position of the index, the ids ascend with the position.
+     */
+    int getId(int position) {
+        return buffer.getInt(indexOffset + position * INDEX_ENTRY_SIZE);
+    }
+
+    /**
+     * Returns the position of the id in the index by binary search, or -1 if the file does not contain it.
+     */
+    int indexOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = getId(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Decodes the item at the position of the index.
+     */
+    WorkshopItem getItem(int position) {
+        int record = getRecord(position);
+        return new WorkshopItem(buffer.getInt(record), readString(record + RECORD_TITLE),
+                buffer.getLong(record + RECORD_TIME_UPDATED), buffer.getLong(record + RECORD_FILE_SIZE),
+                readString(record + RECORD_PREVIEW_URL), buffer.getLong(record + RECORD_FETCHED_AT));
+    }
+
+    /**
+     * Decodes the item of the id, or returns {@code null} if the file does not contain it.
+     */
+    WorkshopItem get(int id) {
+        int position = indexOf(id);
+        return (position >= 0) ? getItem(position) : null;
+    }
+
+    /**
+     * Decodes only the title of the item at the position of the index.
+     */
+    String getTitle(int position) {
+        return readString(getRecord(position) + RECORD_TITLE);
+    }
+
+    long getFetchedAt(int position) {
+        return buffer.getLong(getRecord(position) + RECORD_FETCHED_AT);
+    }
+
+    private int getRecord(int position) {
+        return recordsOffset + buffer.getInt(indexOffset + position * INDEX_ENTRY_SIZE + 4);
+    }
+
+    private String readString(int reference) {
+        int offset = buffer.getInt(reference);
+        int length = buffer.getInt(reference + 4);
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        // a duplicate has a position of its own, so concurrent readers do not disturb each other
+        ByteBuffer strings = buffer.duplicate();
+        strings.position(stringsOffset + offset);
+        strings.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the items in the binary format, sorted by id, and forces them to disk.
+     */
+    static void write(Path path, Collection<WorkshopItem> workshopItems) throws IOException {
+        List<WorkshopItem> items = new ArrayList<>(workshopItems);
+        items.sort(Comparator.comparingInt(WorkshopItem::getId));
+        List<byte[]> strings = new ArrayList<>();
+        int stringsLength = 0;
+        for (WorkshopItem item : items) {
+            for (String string : new String[]{item.hasTitle() ? item.getTitle() : null, item.getPreviewUrl()}) {
+                byte[] bytes = (string != null) ? string.getBytes(StandardCharsets.UTF_8) : null;
+                strings.add(bytes);
+                if (bytes != null) stringsLength += bytes.length;
+            }
+        }
+        int indexOffset = HEADER_SIZE;
+        int recordsOffset = indexOffset + items.size() * INDEX_ENTRY_SIZE;
+        int stringsOffset = recordsOffset + items.size() * RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // only flushed, as closing the stream would close the channel before it is forced
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(items.size());
+            out.writeInt(RECORD_SIZE);
+            out.writeInt(indexOffset);
+            out.writeInt(recordsOffset);
+            out.writeInt(stringsOffset);
+            out.writeInt(stringsLength);
+            for (int i = 0; i < items.size(); i++) {
+                out.writeInt(items.get(i).getId());
+                out.writeInt(i * RECORD_SIZE);
+            }
+            int stringOffset = 0;
+            for (int i = 0; i < items.size(); i++) {
+                WorkshopItem item = items.get(i);
+                out.writeInt(item.getId());
+                out.writeLong(item.getTimeUpdated());
+                out.writeLong(item.getFileSize());
+                out.writeLong(item.getFetchedAt());
+                for (int j = 0; j < 2; j++) {
+                    byte[] bytes = strings.get(2 * i + j);
+                    out.writeInt((bytes != null) ? stringOffset : 0);
+                    out.writeInt((bytes != null) ? bytes.length : -1);
+                    if (bytes != null) stringOffset += bytes.length;
+                }
+            }
+            for (byte[] bytes : strings) {
+                if (bytes != null) out.write(bytes);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+}
@@ -10,6 +10,9 @@ import java.util.Properties;
 
 public final class SettingsManager {
     public static final String STEAM_PATH = "path.steam";
+    public static final String TRANSFER_TARGET_STORAGE = "transfer.target.storage";
+    public static final String TRANSFER_MODE = "transfer.mode";
+    public static final String WORKSHOP_CACHE_TTL_HOURS = "workshop.cache.ttl.hours";
     private static final Logger logger = LogManager.getLogger("SettingsManager");
     private static final String FILE_PATH = FileManager.DIR_PATH + "\\settings.properties";
     private static final String DESCRIPTION = "This file stores the settings of the StarboundModManager.";
@@ -0,0 +1,224 @@
+package com.github.dunklemango.starboundmodmanager.storage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores downscaled preview images of workshopItems on disk, bounded in size by evicting the least recently used.
+ * The recency survives restarts as the modification time of the thumbnail files. The file name holds a hash of the
+ * preview url, so the thumbnail is downloaded again once the preview image of the workshopItem changed.
+ */
+public final class ThumbnailCacheManager {
+    private static final Logger logger = LogManager.getLogger("ThumbnailCacheManager");
+    private static final String DIR_PATH = FileManager.DIR_PATH + "\\thumbnails";
+    private static final String FILE_EXTENSION = ".png";
+    private static final char URL_KEY_SEPARATOR = '_';
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    public static final int THUMBNAIL_SIZE = 64;
+    private static final long MAX_CACHE_BYTES = 16L * 1024 * 1024;
+    private static final int DOWNLOAD_TIMEOUT_MILLIS = 10000;
+    private static ThumbnailCacheManager instance;
+    private boolean directoriesCreated;
+    // stored thumbnails, least recently used first
+    private final LinkedHashMap<Integer, Thumbnail> thumbnailsOfIds = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes = 0;
+
+    private static class Thumbnail {
+        private final String urlKey;
+        private final long size;
+
+        private Thumbnail(String urlKey, long size) {
+            this.urlKey = urlKey;
+            this.size = size;
+        }
+    }
+
+    private ThumbnailCacheManager() {
+        directoriesCreated = FileManager.createDirectories(DIR_PATH);
+        loadIndex();
+    }
+
+    public static synchronized ThumbnailCacheManager getInstance() {
+        if (instance == null) {
+            instance = new ThumbnailCacheManager();
+        }
+        return instance;
+    }
+
+    private File getFile(Integer id, String urlKey) {
+        String name = urlKey.isEmpty() ? String.valueOf(id) : id + String.valueOf(URL_KEY_SEPARATOR) + urlKey;
+        return new File(DIR_PATH, name + FILE_EXTENSION);
+    }
+
+    private static String getUrlKey(String previewUrl) {
+        return Integer.toHexString(previewUrl.hashCode());
+    }
+
+    /**
+     * Indexes the stored thumbnails in the order they were last used.
+     */
+    private void loadIndex() {
+        File[] files = new File(DIR_PATH).listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (!directoriesCreated || files == null) return;
+        List<File> thumbnailFiles = new ArrayList<>();
+        for (File file : files) {
+            try {
+                getId(file);
+                thumbnailFiles.add(file);
+            } catch (NumberFormatException e) {
+                logger.debug("ignoring foreign file {}", file);
+            }
+        }
+        thumbnailFiles.sort((file, otherFile) -> Long.compare(file.lastModified(), otherFile.lastModified()));
+        for (File file : thumbnailFiles) {
+            Integer id = getId(file);
+            Thumbnail previous = thumbnailsOfIds.put(id, new Thumbnail(getUrlKey(file), file.length()));
+            cacheBytes += file.length();
+            // the newer file of the same id replaces the older one
+            if (previous != null) discard(id, previous);
+        }
+        evict();
+        logger.debug("indexed {} thumbnails with {} bytes", thumbnailsOfIds.size(), cacheBytes);
+    }
+
+    private static Integer getId(File file) {
+        String name = getBaseName(file);
+        int separatorIndex = name.indexOf(URL_KEY_SEPARATOR);
+        return Integer.valueOf((separatorIndex < 0) ? name : name.substring(0, separatorIndex));
+    }
+
+    /**
+     * Returns the url key in the file name, or an empty key for thumbnails stored before the key was added, which
+     * then match no preview url and are replaced on their next use.
+     */
+    private static String getUrlKey(File file) {
+        String name = getBaseName(file);
+        int separatorIndex = name.indexOf(URL_KEY_SEPARATOR);
+        return (separatorIndex < 0) ? "" : name.substring(separatorIndex + 1);
+    }
+
+    private static String getBaseName(File file) {
+        return file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length());
+    }
+
+    /**
+     * Returns the stored thumbnail of the preview image and marks it as recently used, or returns {@code null} if
+     * it is not stored. A thumbnail of another preview image of the workshopItem is not returned.
+     * The thumbnail may still be evicted before it is read, a missing file then is a cache miss as well.
+     */
+    public File get(Integer id, String previewUrl) {
+        String urlKey = getUrlKey(previewUrl);
+        synchronized (thumbnailsOfIds) {
+            Thumbnail thumbnail = thumbnailsOfIds.get(id);
+            if (thumbnail == null || !thumbnail.urlKey.equals(urlKey)) return null;
+        }
+        File file = getFile(id, urlKey);
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            if (!file.exists()) return null;
+            logger.debug("unable to mark thumbnail {} as used", file);
+        }
+        return file;
+    }
+
+    /**
+     * Downloads the preview image, stores it downscaled to {@link #THUMBNAIL_SIZE} and returns the thumbnail.
+     * The thumbnail of a former preview image of the workshopItem is deleted.
+     * Blocks for the download, so it must not be called from the JavaFX thread.
+     */
+    public File fetch(Integer id, String previewUrl) throws IOException {
+        File file = get(id, previewUrl);
+        if (file != null) return file;
+        if (!directoriesCreated) throw new IOException("directory " + DIR_PATH + " is not available");
+        BufferedImage previewImage = download(previewUrl);
+        if (previewImage == null) throw new IOException("preview image of workshopItem " + id + " is not readable");
+        String urlKey = getUrlKey(previewUrl);
+        file = getFile(id, urlKey);
+        Path tempPath = new File(file.getPath() + TEMP_FILE_SUFFIX).toPath();
+        ImageIO.write(downscale(previewImage), "png", tempPath.toFile());
+        // another loader may have stored the same thumbnail meanwhile, the move then replaces it as a whole
+        Files.move(tempPath, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (thumbnailsOfIds) {
+            Thumbnail previous = thumbnailsOfIds.put(id, new Thumbnail(urlKey, file.length()));
+            cacheBytes += file.length();
+            if (previous != null) {
+                if (previous.urlKey.equals(urlKey)) {
+                    cacheBytes -= previous.size;
+                } else {
+                    discard(id, previous);
+                }
+            }
+            evict();
+        }
+        return file;
+    }
+
+    private static BufferedImage download(String previewUrl) throws IOException {
+        URLConnection connection = new URL(previewUrl).openConnection();
+        connection.setConnectTimeout(DOWNLOAD_TIMEOUT_MILLIS);
+        connection.setReadTimeout(DOWNLOAD_TIMEOUT_MILLIS);
+        try (InputStream in = connection.getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+
+    /**
+     * Scales the image to fit into a square of {@link #THUMBNAIL_SIZE}, keeping its aspect ratio.
+     */
+    private static BufferedImage downscale(BufferedImage image) {
+        double scale = Math.min(1, (double) THUMBNAIL_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return thumbnail;
+    }
+
+    /**
+     * Deletes the least recently used thumbnails until the cache fits into {@link #MAX_CACHE_BYTES}.
+     */
+    private void evict() {
+        synchronized (thumbnailsOfIds) {
+            Iterator<Map.Entry<Integer, Thumbnail>> iterator = thumbnailsOfIds.entrySet().iterator();
+            while (cacheBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+                Map.Entry<Integer, Thumbnail> entry = iterator.next();
+                discard(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Deletes the file of a thumbnail that was removed from the index.
+     */
+    private void discard(Integer id, Thumbnail thumbnail) {
+        File file = getFile(id, thumbnail.urlKey);
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            logger.error("thumbnail {} could not be deleted.", file, e);
+        }
+        cacheBytes -= thumbnail.size;
+    }
+}
@@ -1,132 +1,744 @@
 package com.github.dunklemango.starboundmodmanager.storage;
 
 import com.github.dunklemango.starboundmodmanager.format.JSONStringFormatter;
+import com.github.dunklemango.starboundmodmanager.workshop.FailedLookup;
+import com.github.dunklemango.starboundmodmanager.workshop.LookupFailureReason;
 import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Caches the workshopItems. The snapshot is a {@link MappedWorkshopCache} of the latest generation, items are only
+ * decoded from it on access. Items put since the snapshot was written are held in memory and journaled, until the
+ * next compaction writes them into a new generation of the snapshot.
+ * The former JSON snapshot is still read once if no binary one exists, and JSON remains the import and export format.
+ * The cache is used by the JavaFX thread and background threads alike, so all of its state is guarded by the
+ * instance. A compaction writes the snapshot without holding that lock.
+ */
 public class WorkshopCacheManager {
     private static final Logger logger = LogManager.getLogger("WorkshopCacheManager");
     private static final String FILE_PATH = FileManager.DIR_PATH + "\\workshopCache.json";
+    private static final String JOURNAL_FILE_PATH = FileManager.DIR_PATH + "\\workshopCache.journal";
+    private static final String FAILED_LOOKUPS_FILE_PATH = FileManager.DIR_PATH + "\\workshopFailures.json";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String SNAPSHOT_FILE_PREFIX = "workshopCache.";
+    private static final String SNAPSHOT_FILE_EXTENSION = ".bin";
+    private static final int JOURNAL_COMPACTION_THRESHOLD = 500;
     private static final String PARSE_KEY = "key";
     private static final String PARSE_VALUE = "value";
     private static WorkshopCacheManager instance;
     private boolean directoriesCreated;
+    private MappedWorkshopCache snapshot;
+    // generation of the mapped snapshot, and the latest generation on disk, which is newer if that one is corrupt
+    private long snapshotGeneration = 0;
+    private long latestGeneration = 0;
+    // items put since the snapshot was written, they take precedence over the ones of the snapshot
     private Map<Integer, WorkshopItem> data = new HashMap<>();
+    private Map<Integer, String> titlesOfIds = new HashMap<>();
+    // built on first use, as it needs the title of every item of the snapshot
+    private Map<String, Set<Integer>> idsOfTitles;
+    private int journalEntryCount = 0;
+    private boolean isSnapshotOutdated = false;
+    private Map<Integer, FailedLookup> failedLookups = new HashMap<>();
+    private boolean isFailedLookupsChanged = false;
+    // serializes the compactions, it is always acquired before the lock of the instance
+    private final Object compactionLock = new Object();
+    private boolean isCompactionScheduled = false;
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workshop-cache-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private WorkshopCacheManager() {
         directoriesCreated = FileManager.createDirectories(FileManager.DIR_PATH);
-        FileManager.createFileIfNotExisting(FILE_PATH);
         loadData();
     }
 
-    public static WorkshopCacheManager getInstance() {
+    public static synchronized WorkshopCacheManager getInstance() {
         if (instance == null) {
             instance = new WorkshopCacheManager();
         }
         return instance;
     }
 
-    public Integer getIdFromTitle(String title) {
-        Set<Map.Entry<Integer, WorkshopItem>> entrySet = this.data.entrySet();
-        for (Map.Entry<Integer, WorkshopItem> entry: entrySet) {
-            if (entry.getValue().getTitle().contentEquals(title)) {
-                return entry.getKey();
+    /**
+     * Returns the id of the item with exactly the given title, or -1 if there is none or the title is ambiguous.
+     * Use {@link #getIdsFromTitle(String)} to resolve titles that are shared by several items.
+     */
+    public synchronized Integer getIdFromTitle(String title) {
+        Integer foundId = -1;
+        for (Integer id : getIdsFromTitle(title)) {
+            if (!getCachedTitle(id).contentEquals(title)) continue;
+            if (foundId != -1) {
+                logger.debug("title \"{}\" is shared by several items", title);
+                return -1;
             }
+            foundId = id;
         }
-        return -1;
+        return foundId;
     }
 
-    public List<String> getTitlesFromIds (List<Integer> ids) {
+    /**
+     * Returns the ids of all items whose normalized title matches the normalized given title.
+     */
+    public synchronized Set<Integer> getIdsFromTitle(String title) {
+        Set<Integer> ids = getTitleIndex().get(normalizeTitle(title));
+        return (ids != null) ? Collections.unmodifiableSet(new HashSet<>(ids)) : Collections.emptySet();
+    }
+
+    private static String normalizeTitle(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Map<String, Set<Integer>> getTitleIndex() {
+        if (idsOfTitles == null) {
+            idsOfTitles = new HashMap<>();
+            getCachedIds().forEach(id -> idsOfTitles.computeIfAbsent(normalizeTitle(getCachedTitle(id)),
+                    key -> new HashSet<>()).add(id));
+        }
+        return idsOfTitles;
+    }
+
+    private void putIntoData(Integer id, WorkshopItem item) {
+        String previousTitle = getCachedTitle(id);
+        this.data.put(id, item);
+        String title = item.getTitle();
+        titlesOfIds.put(id, title);
+        if (idsOfTitles == null) return;
+        if (previousTitle != null) {
+            Set<Integer> idsOfPreviousTitle = idsOfTitles.get(normalizeTitle(previousTitle));
+            idsOfPreviousTitle.remove(id);
+            if (idsOfPreviousTitle.isEmpty()) idsOfTitles.remove(normalizeTitle(previousTitle));
+        }
+        idsOfTitles.computeIfAbsent(normalizeTitle(title), key -> new HashSet<>()).add(id);
+    }
+
+    /**
+     * Returns the title of the cached item, decoding only the title if the item is part of the snapshot,
+     * or {@code null} if the item is not cached.
+     */
+    private String getCachedTitle(Integer id) {
+        String title = titlesOfIds.get(id);
+        if (title != null || snapshot == null) return title;
+        int position = snapshot.indexOf(id);
+        return (position >= 0) ? snapshot.getTitle(position) : null;
+    }
+
+    public synchronized List<String> getTitlesFromIds (List<Integer> ids) {
         List<String> titles = new ArrayList<>();
-        ids.forEach(id -> titles.add(get(id).getTitle()));
+        ids.forEach(id -> titles.add(getTitle(id)));
         return titles;
     }
 
+    /**
+     * Returns the title of the cached item, or the id itself as placeholder while the item is not cached yet.
+     */
+    public synchronized String getTitle(Integer id) {
+        String title = getCachedTitle(id);
+        return (title != null) ? title : String.valueOf(id);
+    }
+
+    /**
+     * Maps the latest snapshot and replays the journal on top of it, dropping all items that were not saved.
+     * Without a binary snapshot the former JSON snapshot is read instead, and converted by the next compaction.
+     */
     public void loadData() {
-        Path path = new File(FILE_PATH).toPath();
-        if (directoriesCreated && Files.exists(path)) {
+        synchronized (compactionLock) {
+            synchronized (this) {
+                loadDataLocked();
+            }
+        }
+    }
+
+    private void loadDataLocked() {
+        long startTime = System.nanoTime();
+        isCompactionScheduled = false;
+        snapshot = null;
+        snapshotGeneration = 0;
+        latestGeneration = 0;
+        data.clear();
+        titlesOfIds.clear();
+        idsOfTitles = null;
+        journalEntryCount = 0;
+        isSnapshotOutdated = false;
+        failedLookups.clear();
+        isFailedLookupsChanged = false;
+        if (directoriesCreated) mapLatestSnapshot();
+        Path jsonPath = new File(FILE_PATH).toPath();
+        if (directoriesCreated && snapshot == null && Files.exists(jsonPath)) {
             try {
-                String content = new String(Files.readAllBytes(path));
-                if (content != null && !content.isEmpty()) {
-                    parseStringToData(content);
-                }
+                if (readJson(jsonPath) > 0) isSnapshotOutdated = true;
             } catch (IOException e) {
                 logger.error("{} could not be located.", FILE_PATH);
+            } catch (JSONException e) {
+                logger.error("unable to convert JSON to data-map item", e);
             }
         }
+        replayJournal();
+        loadFailedLookups();
+        logger.info("loaded {} workshopItems in {} ms", size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    private static Path getSnapshotPath(long generation) {
+        return new File(FileManager.DIR_PATH, SNAPSHOT_FILE_PREFIX + generation + SNAPSHOT_FILE_EXTENSION).toPath();
+    }
+
+    /**
+     * Returns the generations of all snapshot files, the latest first.
+     */
+    private static List<Long> getSnapshotGenerations() {
+        List<Long> generations = new ArrayList<>();
+        String[] names = new File(FileManager.DIR_PATH).list();
+        if (names == null) return generations;
+        for (String name : names) {
+            if (!name.startsWith(SNAPSHOT_FILE_PREFIX) || !name.endsWith(SNAPSHOT_FILE_EXTENSION)) continue;
+            try {
+                generations.add(Long.valueOf(name.substring(SNAPSHOT_FILE_PREFIX.length(),
+                        name.length() - SNAPSHOT_FILE_EXTENSION.length())));
+            } catch (NumberFormatException e) {
+                logger.debug("ignoring foreign file {}", name);
+            }
+        }
+        generations.sort(Comparator.reverseOrder());
+        return generations;
+    }
+
+    /**
+     * Maps the latest readable snapshot and deletes the older ones. A mapped file can not be replaced or deleted
+     * on Windows, so every compaction writes a new generation and the former ones are deleted on the next start.
+     */
+    private void mapLatestSnapshot() {
+        for (Long generation : getSnapshotGenerations()) {
+            latestGeneration = Math.max(latestGeneration, generation);
+            Path path = getSnapshotPath(generation);
+            if (snapshot == null) {
+                try {
+                    snapshot = MappedWorkshopCache.open(path);
+                    snapshotGeneration = generation;
+                    logger.debug("mapped snapshot {} with {} workshopItems", path, snapshot.size());
+                    continue;
+                } catch (IOException e) {
+                    logger.error("{} could not be mapped, falling back to an older snapshot.", path, e);
+                }
+            }
+            deleteSnapshot(path);
+        }
+    }
+
+    private static void deleteSnapshot(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("{} is still in use, it is deleted on the next start", path);
+        }
     }
 
-    private void parseStringToData(String str) {
+    private void replayJournal() {
+        Path journalPath = new File(JOURNAL_FILE_PATH).toPath();
+        if (!directoriesCreated || !Files.exists(journalPath)) return;
         try {
-            JSONArray jsonArray = new JSONArray(str);
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject mapEntryJson = jsonArray.getJSONObject(i);
+            List<String> lines = Files.readAllLines(journalPath);
+            for (String line : lines) {
+                if (line.isEmpty()) continue;
+                try {
+                    JSONObject mapEntryJson = new JSONObject(line);
+                    putParsedEntry(mapEntryJson);
+                    journalEntryCount++;
+                } catch (JSONException e) {
+                    // a crash while appending leaves a partial last line behind
+                    logger.error("skipping unreadable journal entry: {}", line, e);
+                }
+            }
+            logger.debug("replayed {} journal entries", journalEntryCount);
+        } catch (IOException e) {
+            logger.error("{} could not be read.", JOURNAL_FILE_PATH, e);
+        }
+    }
+
+    private void putParsedEntry(JSONObject mapEntryJson) throws JSONException {
+        WorkshopItem item = new WorkshopItem(mapEntryJson.getJSONObject(PARSE_VALUE));
+        if (!item.hasTitle()) {
+            // former versions cached failed lookups as items without details, they are looked up again instead
+            logger.debug("dropping cached workshopItem {} without details", item.getId());
+            isSnapshotOutdated = true;
+            return;
+        }
+        if (item.hasDetails()) {
+            // entries of the former format still contain the full details
+            storeDetails(item);
+            isSnapshotOutdated = true;
+        }
+        putIntoData(mapEntryJson.getInt(PARSE_KEY), item);
+    }
+
+    /**
+     * Streams the JSON array of the file into the cache, so the file is never held in memory as a whole.
+     * Returns the number of read entries.
+     */
+    private int readJson(Path path) throws IOException, JSONException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Reader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.name()))) {
+            return readSnapshot(new JSONTokener(reader));
+        }
+    }
+
+    /**
+     * Reads the JSON array of the snapshot one map entry at a time. An empty file is read as an empty array.
+     */
+    private int readSnapshot(JSONTokener tokener) throws JSONException {
+        char next = tokener.nextClean();
+        if (next == 0) return 0;
+        if (next != '[') throw tokener.syntaxError("A JSONArray text must start with '['");
+        int i = 0;
+        next = tokener.nextClean();
+        while (next != ']') {
+            tokener.back();
+            Object value = tokener.nextValue();
+            if (!(value instanceof JSONObject)) throw tokener.syntaxError("A map entry must be a JSONObject");
+            JSONObject mapEntryJson = (JSONObject) value;
+            // formatting every entry would cost more than parsing it, so it is only done for the debug log
+            if (logger.isDebugEnabled()) {
                 logger.debug("String to data: mapEntryJson #{}: {}", i, JSONStringFormatter.formatJson(mapEntryJson));
-                this.data.put(mapEntryJson.getInt(PARSE_KEY),
-                        new WorkshopItem(mapEntryJson.getJSONObject(PARSE_VALUE)));
             }
-        } catch (JSONException e) {
-            logger.error("unable to convert JSON to data-map item", e);
+            i++;
+            putParsedEntry(mapEntryJson);
+            next = tokener.nextClean();
+            if (next == ',') {
+                next = tokener.nextClean();
+            } else if (next != ']') {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
+        }
+        return i;
+    }
+
+    private JSONObject toMapEntryJson(Integer id, WorkshopItem workshopItem) throws JSONException {
+        JSONObject mapEntryJson = new JSONObject();
+        mapEntryJson.put(PARSE_KEY, id);
+        mapEntryJson.put(PARSE_VALUE, workshopItem.toJsonObject());
+        if (logger.isDebugEnabled()) {
+            logger.debug("data to String: mapEntryJson: {}", JSONStringFormatter.formatJson(mapEntryJson));
         }
+        return mapEntryJson;
     }
 
-    private JSONArray mapToJson() {
-        JSONArray jsonArray = new JSONArray();
-        this.data.forEach((id, workshopItem) -> {
+    /**
+     * Writes the data-map as JSON array, serializing one map entry at a time.
+     */
+    private void writeSnapshot(Writer writer, List<WorkshopItem> items) throws IOException {
+        writer.write('[');
+        boolean isFirstEntry = true;
+        for (WorkshopItem item : items) {
             try {
-                JSONObject mapEntryJson = new JSONObject();
-                mapEntryJson.put(PARSE_KEY, id);
-                mapEntryJson.put(PARSE_VALUE, workshopItem.toJsonObject());
-                logger.debug("data to String: workshopItem: {}",
-                        JSONStringFormatter.formatJson(workshopItem.toJsonObject()));
-                logger.debug("data to String: mapEntryJson: {}",
-                        JSONStringFormatter.formatJson(mapEntryJson));
-                jsonArray.put(mapEntryJson);
+                JSONObject mapEntryJson = toMapEntryJson(item.getId(), item);
+                if (!isFirstEntry) writer.write(',');
+                mapEntryJson.write(writer);
+                isFirstEntry = false;
             } catch (JSONException e) {
                 logger.error("unable to convert item from data-map to JSON", e);
             }
-        });
-        return jsonArray;
+        }
+        writer.write(']');
     }
 
+    /**
+     * Exports the whole cache as JSON array, in the format of the former snapshot.
+     */
+    public void exportToJson(Path path) throws IOException {
+        List<WorkshopItem> items;
+        synchronized (this) {
+            items = getAll();
+        }
+        Path tempPath = new File(path + TEMP_FILE_SUFFIX).toPath();
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.name()))) {
+            writeSnapshot(writer, items);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Imports a JSON array as written by {@link #exportToJson(Path)}, replacing the cached items of the same ids,
+     * and compacts the cache. Returns the number of imported items.
+     */
+    public int importFromJson(Path path) throws IOException {
+        int count;
+        try {
+            synchronized (this) {
+                count = readJson(path);
+            }
+        } catch (JSONException e) {
+            throw new IOException("unable to convert " + path + " to workshopItems", e);
+        }
+        compact();
+        return count;
+    }
+
+    /**
+     * Folds the journal into the snapshot, if anything was journaled since the last compaction,
+     * and waits for the details of the items to be written.
+     */
     public void saveData() {
-        if (directoriesCreated) {
+        boolean isCompactionNeeded;
+        synchronized (this) {
+            isCompactionNeeded = directoriesCreated && (journalEntryCount > 0 || isSnapshotOutdated);
+        }
+        if (isCompactionNeeded) compact();
+        saveFailedLookups();
+        WorkshopDetailsManager.getInstance().flush();
+    }
+
+    private void loadFailedLookups() {
+        Path path = new File(FAILED_LOOKUPS_FILE_PATH).toPath();
+        if (!directoriesCreated || !Files.exists(path)) return;
+        try {
+            for (String line : Files.readAllLines(path)) {
+                if (line.isEmpty()) continue;
+                try {
+                    FailedLookup failedLookup = new FailedLookup(new JSONObject(line));
+                    if (!containsKey(failedLookup.getId())) {
+                        failedLookups.put(failedLookup.getId(), failedLookup);
+                    }
+                } catch (JSONException e) {
+                    logger.error("skipping unreadable failed lookup: {}", line, e);
+                }
+            }
+            logger.debug("loaded {} failed lookups", failedLookups.size());
+        } catch (IOException e) {
+            logger.error("{} could not be read.", FAILED_LOOKUPS_FILE_PATH, e);
+        }
+    }
+
+    /**
+     * Writes the failed lookups to a temporary file and atomically replaces the former ones, if any changed.
+     */
+    private synchronized void saveFailedLookups() {
+        if (!directoriesCreated || !isFailedLookupsChanged) return;
+        Path path = new File(FAILED_LOOKUPS_FILE_PATH).toPath();
+        Path tempPath = new File(FAILED_LOOKUPS_FILE_PATH + TEMP_FILE_SUFFIX).toPath();
+        List<String> lines = new ArrayList<>();
+        for (FailedLookup failedLookup : failedLookups.values()) {
             try {
-                Files.write(new File(FILE_PATH).toPath(), Collections.singleton(mapToJson().toString()));
+                lines.add(failedLookup.toJsonObject().toString());
+            } catch (JSONException e) {
+                logger.error("unable to convert failed lookup {} to JSON", failedLookup, e);
+            }
+        }
+        try {
+            Files.write(tempPath, lines);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            isFailedLookupsChanged = false;
+        } catch (IOException e) {
+            logger.error("{} could not be written.", FAILED_LOOKUPS_FILE_PATH, e);
+        }
+    }
+
+    /**
+     * Writes the whole cache as the next generation of the snapshot, maps it and clears the journal.
+     * The new generation is written to a temporary file first, so a crash leaves the former one in place.
+     * The cache stays usable while the snapshot is written, items put meanwhile are kept in the journal.
+     */
+    public void compact() {
+        if (!directoriesCreated) return;
+        synchronized (compactionLock) {
+            List<WorkshopItem> items;
+            Map<Integer, WorkshopItem> compactedData;
+            int compactedJournalEntryCount;
+            long generation;
+            synchronized (this) {
+                isCompactionScheduled = false;
+                items = getAll();
+                compactedData = new HashMap<>(data);
+                compactedJournalEntryCount = journalEntryCount;
+                isSnapshotOutdated = false;
+                generation = latestGeneration + 1;
+            }
+            Path path = getSnapshotPath(generation);
+            Path tempPath = new File(path + TEMP_FILE_SUFFIX).toPath();
+            long startTime = System.nanoTime();
+            try {
+                MappedWorkshopCache.write(tempPath, items);
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                MappedWorkshopCache compactedSnapshot = MappedWorkshopCache.open(path);
+                synchronized (this) {
+                    MappedWorkshopCache previousSnapshot = snapshot;
+                    snapshot = compactedSnapshot;
+                    // items that were replaced while the snapshot was written stay in front of it
+                    compactedData.forEach((id, item) -> {
+                        if (data.get(id) != item) return;
+                        data.remove(id);
+                        titlesOfIds.remove(id);
+                    });
+                    rewriteJournal();
+                    if (previousSnapshot != null) deleteSnapshot(getSnapshotPath(snapshotGeneration));
+                    snapshotGeneration = generation;
+                    latestGeneration = generation;
+                }
+                // the former JSON snapshot is converted now
+                Files.deleteIfExists(new File(FILE_PATH).toPath());
+                logger.info("compacted {} journal entries into {} in {} ms", compactedJournalEntryCount, path,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
             } catch (IOException e) {
-                logger.error("{} could not be located.", FILE_PATH);
+                synchronized (this) {
+                    isSnapshotOutdated = true;
+                }
+                logger.error("{} could not be compacted.", path, e);
             }
         }
     }
 
-    public WorkshopItem get(Integer id) {
-        return this.data.get(id);
+    /**
+     * Replaces the journal with the items that are not part of the snapshot, or deletes it if there are none.
+     */
+    private void rewriteJournal() throws IOException {
+        Path journalPath = new File(JOURNAL_FILE_PATH).toPath();
+        journalEntryCount = 0;
+        if (data.isEmpty()) {
+            Files.deleteIfExists(journalPath);
+            return;
+        }
+        List<String> lines = toJournalLines(data.values());
+        Path tempPath = new File(JOURNAL_FILE_PATH + TEMP_FILE_SUFFIX).toPath();
+        Files.write(tempPath, lines);
+        Files.move(tempPath, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journalEntryCount = lines.size();
     }
 
-    public WorkshopItem put(Integer id, WorkshopItem item) {
-        return this.data.put(id, item);
+    private List<String> toJournalLines(Collection<WorkshopItem> workshopItems) {
+        List<String> lines = new ArrayList<>();
+        workshopItems.forEach(item -> {
+            try {
+                lines.add(toMapEntryJson(item.getId(), item).toString());
+            } catch (JSONException e) {
+                logger.error("unable to convert item from data-map to JSON", e);
+            }
+        });
+        return lines;
     }
 
-    public void putAll(List<WorkshopItem> workshopItems) {
-        workshopItems.forEach(item -> this.data.put(item.getId(), item));
+    /**
+     * Appends the items to the journal, and schedules a compaction in the background once the journal is long.
+     */
+    private void appendToJournal(Collection<WorkshopItem> workshopItems) {
+        if (!directoriesCreated || workshopItems.isEmpty()) return;
+        List<String> lines = toJournalLines(workshopItems);
+        try {
+            Files.write(new File(JOURNAL_FILE_PATH).toPath(), lines,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            journalEntryCount += lines.size();
+        } catch (IOException e) {
+            logger.error("{} could not be appended to.", JOURNAL_FILE_PATH, e);
+        }
+        if (journalEntryCount >= JOURNAL_COMPACTION_THRESHOLD && !isCompactionScheduled) {
+            isCompactionScheduled = true;
+            compactionExecutor.execute(this::compact);
+        }
+    }
+
+    public synchronized WorkshopItem get(Integer id) {
+        WorkshopItem item = this.data.get(id);
+        if (item != null || snapshot == null) return item;
+        return snapshot.get(id);
+    }
+
+    /**
+     * Returns all cached items, decoding the ones of the snapshot.
+     */
+    private List<WorkshopItem> getAll() {
+        List<WorkshopItem> items = new ArrayList<>(this.data.values());
+        if (snapshot != null) {
+            for (int position = 0; position < snapshot.size(); position++) {
+                if (!this.data.containsKey(snapshot.getId(position))) items.add(snapshot.getItem(position));
+            }
+        }
+        return items;
     }
 
-    public List<Integer> getCachedIds() {
-        return new ArrayList<>(this.data.keySet());
+    public synchronized int size() {
+        int size = this.data.size();
+        if (snapshot != null) {
+            size += snapshot.size();
+            for (Integer id : this.data.keySet()) {
+                if (snapshot.contains(id)) size--;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Moves the full details of the item, if it still holds them, into the {@link WorkshopDetailsManager}.
+     */
+    private void storeDetails(WorkshopItem item) {
+        if (item.hasDetails()) {
+            WorkshopDetailsManager.getInstance().save(item.getId(), item.releaseDetails());
+        }
+    }
+
+    /**
+     * Returns the full Steam details of the item, loading them from disk on demand.
+     */
+    public JSONObject getDetails(Integer id) {
+        if (!containsKey(id)) return null;
+        return WorkshopDetailsManager.getInstance().load(id);
+    }
+
+    /**
+     * Caches the workshopItem under its id, which is the id it is journaled under as well.
+     */
+    public synchronized WorkshopItem put(Integer id, WorkshopItem item) {
+        if (!id.equals(item.getId())) throw new IllegalArgumentException("id must match the id of the item!");
+        storeDetails(item);
+        WorkshopItem previousItem = get(id);
+        putIntoData(id, item);
+        appendToJournal(Collections.singletonList(item));
+        return previousItem;
+    }
+
+    /**
+     * Caches the fetched workshopItems. Items without details are not cached but recorded as failed lookups,
+     * with {@link LookupFailureReason#REQUEST_FAILED} if Steam did not answer for them and
+     * {@link LookupFailureReason#NOT_FOUND} otherwise.
+     */
+    public synchronized void putAll(List<WorkshopItem> workshopItems) {
+        List<WorkshopItem> resolvedItems = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (WorkshopItem item : workshopItems) {
+            if (item.hasTitle()) {
+                resolvedItems.add(item);
+                if (failedLookups.remove(item.getId()) != null) isFailedLookupsChanged = true;
+            } else {
+                recordFailedLookup(item.getId(),
+                        (item.getFetchedAt() == 0) ? LookupFailureReason.REQUEST_FAILED : LookupFailureReason.NOT_FOUND,
+                        now);
+            }
+        }
+        resolvedItems.forEach(this::storeDetails);
+        resolvedItems.forEach(item -> putIntoData(item.getId(), item));
+        appendToJournal(resolvedItems);
+    }
+
+    /**
+     * Records a failed lookup for each of the ids, for example if the whole request failed.
+     */
+    public synchronized void putFailedLookups(Collection<Integer> ids, LookupFailureReason reason) {
+        long now = System.currentTimeMillis();
+        ids.forEach(id -> recordFailedLookup(id, reason, now));
+    }
+
+    private void recordFailedLookup(Integer id, LookupFailureReason reason, long now) {
+        failedLookups.computeIfAbsent(id, FailedLookup::new).fail(reason, now);
+        isFailedLookupsChanged = true;
+    }
+
+    /**
+     * Returns the failed lookup of the id, or {@code null} if its last lookup did not fail.
+     */
+    public synchronized FailedLookup getFailedLookup(Integer id) {
+        return failedLookups.get(id);
+    }
+
+    /**
+     * Returns whether the id is neither cached nor backing off from a failed lookup, so it should be fetched.
+     */
+    public synchronized boolean isLookupDue(Integer id) {
+        if (containsKey(id)) return false;
+        FailedLookup failedLookup = failedLookups.get(id);
+        return failedLookup == null || failedLookup.isDue(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the ids of all items that were fetched at least {@code ttlMillis} ago, the least recently fetched first.
+     * Items of former cache files never recorded when they were fetched, so they are stale right away.
+     */
+    public synchronized List<Integer> getStaleIds(long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Map<Integer, Long> fetchedAtOfStaleIds = new HashMap<>();
+        for (WorkshopItem item : this.data.values()) {
+            if (item.isStale(now, ttlMillis)) fetchedAtOfStaleIds.put(item.getId(), item.getFetchedAt());
+        }
+        if (snapshot != null) {
+            // reads just the times of the snapshot, without decoding its items
+            for (int position = 0; position < snapshot.size(); position++) {
+                long fetchedAt = snapshot.getFetchedAt(position);
+                int id = snapshot.getId(position);
+                if (now - fetchedAt >= ttlMillis && !this.data.containsKey(id)) fetchedAtOfStaleIds.put(id, fetchedAt);
+            }
+        }
+        List<Integer> staleIds = new ArrayList<>(fetchedAtOfStaleIds.keySet());
+        staleIds.sort(Comparator.comparing(fetchedAtOfStaleIds::get));
+        return staleIds;
+    }
+
+    /**
+     * Applies the refetched items to the cache and returns the ids of the replaced items.
+     * Only items whose time_updated moved replace the cached ones. Unchanged items, and items Steam no longer
+     * reports the time_updated of, just renew the time the cached ones were fetched at.
+     * Items without a response are ignored, so they stay stale and are refetched by the next revalidation.
+     */
+    public synchronized List<Integer> revalidate(List<WorkshopItem> fetchedItems) {
+        List<WorkshopItem> changedItems = new ArrayList<>();
+        List<Integer> idsOfChangedItems = new ArrayList<>();
+        for (WorkshopItem fetchedItem : fetchedItems) {
+            if (fetchedItem.getFetchedAt() == 0) continue;
+            WorkshopItem cachedItem = get(fetchedItem.getId());
+            if (cachedItem != null && (fetchedItem.getTimeUpdated() == 0
+                    || fetchedItem.getTimeUpdated() == cachedItem.getTimeUpdated())) {
+                // the renewed times are written with the next compaction, no journal entry is needed for them.
+                // The cached item is copied, as a running compaction may still be writing it
+                WorkshopItem renewedItem = new WorkshopItem(cachedItem.getId(), cachedItem.getTitle(),
+                        cachedItem.getTimeUpdated(), cachedItem.getFileSize(), cachedItem.getPreviewUrl(),
+                        fetchedItem.getFetchedAt());
+                this.data.put(renewedItem.getId(), renewedItem);
+                titlesOfIds.put(renewedItem.getId(), renewedItem.getTitle());
+                isSnapshotOutdated = true;
+            } else {
+                changedItems.add(fetchedItem);
+                idsOfChangedItems.add(fetchedItem.getId());
+            }
+        }
+        if (!changedItems.isEmpty()) putAll(changedItems);
+        logger.debug("revalidated {} workshopItems, {} of them changed: {}", fetchedItems.size(),
+                changedItems.size(), idsOfChangedItems);
+        return idsOfChangedItems;
+    }
+
+    public synchronized List<Integer> getCachedIds() {
+        List<Integer> ids = new ArrayList<>(this.data.keySet());
+        if (snapshot != null) {
+            for (int position = 0; position < snapshot.size(); position++) {
+                int id = snapshot.getId(position);
+                if (!this.data.containsKey(id)) ids.add(id);
+            }
+        }
+        return ids;
     }
 
-    public boolean containsKey(Integer id) {
-        return this.data.containsKey(id);
+    public synchronized boolean containsKey(Integer id) {
+        return this.data.containsKey(id) || (snapshot != null && snapshot.contains(id));
     }
 
 }
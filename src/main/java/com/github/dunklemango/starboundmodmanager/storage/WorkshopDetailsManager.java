@@ -0,0 +1,104 @@
+package com.github.dunklemango.starboundmodmanager.storage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stores the full Steam details of every workshopItem in a file of its own, so they are only read on demand.
+ * The files are written by a background thread, as the details arrive in batches on the JavaFX thread.
+ */
+public final class WorkshopDetailsManager {
+    private static final Logger logger = LogManager.getLogger("WorkshopDetailsManager");
+    private static final String DIR_PATH = FileManager.DIR_PATH + "\\workshopDetails";
+    private static final String FILE_EXTENSION = ".json";
+    private static WorkshopDetailsManager instance;
+    private boolean directoriesCreated;
+    // details that are not written yet, they are served from here until they are
+    private final Map<Integer, JSONObject> pendingDetails = new ConcurrentHashMap<>();
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workshop-details-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WorkshopDetailsManager() {
+        directoriesCreated = FileManager.createDirectories(DIR_PATH);
+    }
+
+    public static synchronized WorkshopDetailsManager getInstance() {
+        if (instance == null) {
+            instance = new WorkshopDetailsManager();
+        }
+        return instance;
+    }
+
+    private Path getPath(Integer id) {
+        return new File(DIR_PATH, id + FILE_EXTENSION).toPath();
+    }
+
+    /**
+     * Queues the details to be written in the background, without blocking the caller on the disk.
+     */
+    public void save(Integer id, JSONObject details) {
+        if (!directoriesCreated || details == null) return;
+        pendingDetails.put(id, details);
+        writeExecutor.execute(() -> write(id));
+    }
+
+    private void write(Integer id) {
+        // details saved again meanwhile were already written by a former task, or are written now in their place
+        JSONObject details = pendingDetails.get(id);
+        if (details == null) return;
+        try {
+            Files.write(getPath(id), Collections.singleton(details.toString()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.error("details of workshopItem {} could not be stored.", id, e);
+        }
+        pendingDetails.remove(id, details);
+    }
+
+    /**
+     * Blocks until all details saved so far are written.
+     */
+    public void flush() {
+        try {
+            writeExecutor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("unable to wait for the details to be written", e);
+        }
+    }
+
+    /**
+     * Returns the stored details of the workshopItem, or {@code null} if there are none.
+     */
+    public JSONObject load(Integer id) {
+        JSONObject details = pendingDetails.get(id);
+        if (details != null) return details;
+        Path path = getPath(id);
+        if (!directoriesCreated || !Files.exists(path)) return null;
+        try {
+            return new JSONObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("details of workshopItem {} could not be read.", id, e);
+        } catch (JSONException e) {
+            logger.error("details of workshopItem {} could not be converted to JSON", id, e);
+        }
+        return null;
+    }
+}
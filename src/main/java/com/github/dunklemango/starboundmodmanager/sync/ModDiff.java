@@ -0,0 +1,117 @@
+package com.github.dunklemango.starboundmodmanager.sync;
+
+import com.github.dunklemango.starboundmodmanager.data.ModFile;
+import com.github.dunklemango.starboundmodmanager.scan.ScanSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Difference between the workshop downloads and the mods directory, computed in a single merge pass over the
+ * ascending ids of both snapshots. Every id ends up in exactly one of the four sets.
+ */
+public class ModDiff {
+    private final int[] newIds;
+    private final int[] updatedIds;
+    private final int[] installedOnlyIds;
+    private final int[] identicalIds;
+
+    private ModDiff(int[] newIds, int[] updatedIds, int[] installedOnlyIds, int[] identicalIds) {
+        this.newIds = newIds;
+        this.updatedIds = updatedIds;
+        this.installedOnlyIds = installedOnlyIds;
+        this.identicalIds = identicalIds;
+    }
+
+    /**
+     * @param isContentEqual decides for a download and its installed modFile whether they are identical,
+     *                       called only for ids contained in both snapshots
+     */
+    public static ModDiff compute(ScanSnapshot inputSnapshot, ScanSnapshot outputSnapshot,
+                                  BiPredicate<ModFile, ModFile> isContentEqual) {
+        int[] inputIds = inputSnapshot.getSortedIds();
+        int[] outputIds = outputSnapshot.getSortedIds();
+        IdBuffer newIds = new IdBuffer();
+        IdBuffer updatedIds = new IdBuffer();
+        IdBuffer installedOnlyIds = new IdBuffer();
+        IdBuffer identicalIds = new IdBuffer();
+        int i = 0;
+        int o = 0;
+        while (i < inputIds.length || o < outputIds.length) {
+            if (o == outputIds.length || (i < inputIds.length && inputIds[i] < outputIds[o])) {
+                newIds.add(inputIds[i++]);
+            } else if (i == inputIds.length || outputIds[o] < inputIds[i]) {
+                installedOnlyIds.add(outputIds[o++]);
+            } else {
+                boolean isIdentical = isContentEqual.test(inputSnapshot.getSortedModFile(i),
+                        outputSnapshot.getSortedModFile(o));
+                (isIdentical ? identicalIds : updatedIds).add(inputIds[i]);
+                i++;
+                o++;
+            }
+        }
+        return new ModDiff(newIds.toArray(), updatedIds.toArray(), installedOnlyIds.toArray(),
+                identicalIds.toArray());
+    }
+
+    /**
+     * Returns the ascending ids that are downloaded but not installed.
+     */
+    public int[] getNewIds() {
+        return newIds.clone();
+    }
+
+    /**
+     * Returns the ascending ids whose installed modFile differs from the download.
+     */
+    public int[] getUpdatedIds() {
+        return updatedIds.clone();
+    }
+
+    /**
+     * Returns the ascending ids that are installed but not downloaded.
+     */
+    public int[] getInstalledOnlyIds() {
+        return installedOnlyIds.clone();
+    }
+
+    /**
+     * Returns the ascending ids whose installed modFile equals the download.
+     */
+    public int[] getIdenticalIds() {
+        return identicalIds.clone();
+    }
+
+    /**
+     * Boxes the ids for APIs working on lists.
+     */
+    public static List<Integer> toList(int[] ids) {
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        return idList;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{new: %d, updated: %d, installed only: %d, identical: %d}", newIds.length,
+                updatedIds.length, installedOnlyIds.length, identicalIds.length);
+    }
+
+    private static class IdBuffer {
+        private int[] ids = new int[16];
+        private int size = 0;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
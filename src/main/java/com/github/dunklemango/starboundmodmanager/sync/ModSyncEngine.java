@@ -0,0 +1,222 @@
+package com.github.dunklemango.starboundmodmanager.sync;
+
+import com.github.dunklemango.starboundmodmanager.data.ModFile;
+import com.github.dunklemango.starboundmodmanager.scan.ModScanner;
+import com.github.dunklemango.starboundmodmanager.scan.ScanSnapshot;
+import com.github.dunklemango.starboundmodmanager.storage.DigestCacheManager;
+import com.github.dunklemango.starboundmodmanager.storage.SettingsManager;
+import com.github.dunklemango.starboundmodmanager.storage.WorkshopCacheManager;
+import com.github.dunklemango.starboundmodmanager.transfer.DeltaPatcher;
+import com.github.dunklemango.starboundmodmanager.transfer.FileTransfer;
+import com.github.dunklemango.starboundmodmanager.transfer.StorageType;
+import com.github.dunklemango.starboundmodmanager.transfer.TransferMode;
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItemManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Scans, compares, installs and removes the mods of a Steam installation, without depending on any UI.
+ * Both the JavaFX frame and the command line work through this engine.
+ */
+public class ModSyncEngine {
+    private static final Logger logger = LogManager.getLogger("ModSyncEngine");
+    public static final long DEFAULT_WORKSHOP_CACHE_TTL_HOURS = 24;
+    public static final Path RELATIVE_INPUT_PATH = Paths.get("SteamApps", "workshop", "content", "211820");
+    public static final Path RELATIVE_OUTPUT_PATH = Paths.get("SteamApps", "common", "Starbound", "mods");
+    // mods directories whose interrupted delta updates were rolled back, which is done once per process, as a running
+    // delta update has an undo file as well
+    private static final Set<Path> recoveredOutputPaths = new HashSet<>();
+    private final Path pathToSteam;
+
+    public ModSyncEngine(Path pathToSteam) {
+        this.pathToSteam = pathToSteam;
+    }
+
+    public Path getPathToSteam() {
+        return pathToSteam;
+    }
+
+    public Path getInputPath() {
+        return pathToSteam.resolve(RELATIVE_INPUT_PATH);
+    }
+
+    public Path getOutputPath() {
+        return pathToSteam.resolve(RELATIVE_OUTPUT_PATH);
+    }
+
+    public ScanSnapshot scanInput() throws IOException {
+        return ModScanner.scanWorkshopContent(getInputPath());
+    }
+
+    /**
+     * Scans the workshop downloads, handing the found modFiles to the consumer in chunks.
+     */
+    public ScanSnapshot scanInput(int chunkSize, Consumer<List<ModFile>> chunkConsumer) throws IOException {
+        return ModScanner.scanWorkshopContent(getInputPath(), chunkSize, chunkConsumer);
+    }
+
+    public ScanSnapshot scanOutput() throws IOException {
+        return scanOutput(Integer.MAX_VALUE, chunk -> { });
+    }
+
+    /**
+     * Scans the mods directory, handing the found modFiles to the consumer in chunks.
+     * Delta updates interrupted by a former run are rolled back before the first scan, so no half-written modFile
+     * is listed.
+     */
+    public ScanSnapshot scanOutput(int chunkSize, Consumer<List<ModFile>> chunkConsumer) throws IOException {
+        recoverInterruptedPatches(getOutputPath());
+        return ModScanner.scanModsDirectory(getOutputPath(), chunkSize, chunkConsumer);
+    }
+
+    /**
+     * Rolls back the interrupted delta updates of the mods directory, if it was not done before in this process.
+     * Later scans, e.g. of the directory watcher, must not touch the undo files of the updates running right now.
+     */
+    private static synchronized void recoverInterruptedPatches(Path outputPath) {
+        if (!recoveredOutputPaths.add(outputPath.toAbsolutePath().normalize())) return;
+        DeltaPatcher.recoverInterruptedPatches(outputPath);
+    }
+
+    /**
+     * Returns the ids of all installed modFiles whose content differs from their workshop download.
+     */
+    public List<Integer> findChangedModFiles(ScanSnapshot inputSnapshot, ScanSnapshot outputSnapshot) {
+        return ModDiff.toList(diff(inputSnapshot, outputSnapshot).getUpdatedIds());
+    }
+
+    /**
+     * Compares the workshop downloads with the mods directory in a single pass.
+     * Digests are only computed for files of equal size whose cached digest is outdated.
+     */
+    public ModDiff diff(ScanSnapshot inputSnapshot, ScanSnapshot outputSnapshot) {
+        DigestCacheManager digestCacheManager = DigestCacheManager.getInstance();
+        long startTime = System.nanoTime();
+        ModDiff diff = ModDiff.compute(inputSnapshot, outputSnapshot, (inputModFile, outputModFile) -> {
+            try {
+                return digestCacheManager.isContentEqual(inputModFile, outputModFile);
+            } catch (IOException e) {
+                logger.error("unable to compare modFile {}, falling back to its modification date",
+                        inputModFile.getId(), e);
+                return !inputModFile.isNewerThan(outputModFile);
+            }
+        });
+        logger.debug("diffed {} downloads against {} installed modFiles in {} ms: {}", inputSnapshot.size(),
+                outputSnapshot.size(), (System.nanoTime() - startTime) / 1000000, diff);
+        return diff;
+    }
+
+    public File getOutputFile(Integer id) {
+        return getOutputPath().resolve(id + ModFile.MOD_FILE_EXTENSION).toFile();
+    }
+
+    /**
+     * Creates the transfer of the paks of the workshop downloads into the mods directory,
+     * using the storage type and transfer mode of the settings.
+     */
+    public FileTransfer createFileTransfer(Collection<ModFile> inputModFiles) {
+        SettingsManager settingsManager = SettingsManager.getInstance();
+        StorageType targetStorageType = StorageType.fromSetting(
+                settingsManager.getSetting(SettingsManager.TRANSFER_TARGET_STORAGE));
+        TransferMode transferMode = TransferMode.fromSetting(settingsManager.getSetting(SettingsManager.TRANSFER_MODE));
+        return createFileTransfer(inputModFiles, targetStorageType, transferMode);
+    }
+
+    public FileTransfer createFileTransfer(Collection<ModFile> inputModFiles, StorageType targetStorageType,
+                                           TransferMode transferMode) {
+        List<File> inputFiles = new ArrayList<>();
+        List<File> outputFiles = new ArrayList<>();
+        for (ModFile inputModFile : inputModFiles) {
+            File inputFile = inputModFile.getPakFile();
+            File outputFile = getOutputFile(inputModFile.getId());
+            logger.debug("writing modFile: {}", outputFile);
+            if (inputFile.exists()) {
+                inputFiles.add(inputFile);
+                outputFiles.add(outputFile);
+            }
+        }
+        logger.debug("inputFiles: {}", inputFiles);
+        logger.debug("outputFiles: {}", outputFiles);
+        return new FileTransfer(inputFiles, outputFiles, targetStorageType, transferMode);
+    }
+
+    /**
+     * Deletes the installed paks of the modFiles and returns the ids of the deleted ones.
+     */
+    public List<Integer> deleteModFiles(Collection<ModFile> outputModFiles) {
+        List<Integer> idsOfDeletedModFiles = new ArrayList<>();
+        for (ModFile outputModFile : outputModFiles) {
+            File file = outputModFile.getFile();
+            if (file == null || file.isDirectory() || !file.getAbsolutePath().endsWith(ModFile.MOD_FILE_EXTENSION)) {
+                continue;
+            }
+            try {
+                Files.delete(file.toPath());
+                idsOfDeletedModFiles.add(outputModFile.getId());
+            } catch (IOException e) {
+                logger.error("unable to delete modFile {}", file, e);
+            }
+        }
+        return idsOfDeletedModFiles;
+    }
+
+    /**
+     * Fetches the workshopItems of all ids that are not cached yet, skipping ids whose failed lookup is not due
+     * again. The caller puts them into the cache.
+     */
+    public CompletableFuture<List<WorkshopItem>> fetchMissingWorkshopItems(Collection<Integer> workshopIds) {
+        WorkshopCacheManager manager = WorkshopCacheManager.getInstance();
+        List<Integer> workshopIdsToRetrieve = new ArrayList<>(workshopIds);
+        workshopIdsToRetrieve.removeIf(id -> !manager.isLookupDue(id));
+        if (workshopIdsToRetrieve.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyList());
+        return WorkshopItemManager.fetchWorkshopItemsAsync(workshopIdsToRetrieve);
+    }
+
+    /**
+     * Fetches the workshopItems of the ids, whether they are cached or not. The caller revalidates the cache with them.
+     */
+    public CompletableFuture<List<WorkshopItem>> fetchWorkshopItems(Collection<Integer> workshopIds) {
+        if (workshopIds.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyList());
+        return WorkshopItemManager.fetchWorkshopItemsAsync(workshopIds);
+    }
+
+    /**
+     * Returns how long fetched workshopItems are trusted before they are revalidated, as set in the settings.
+     */
+    public long getWorkshopCacheTtlMillis() {
+        String setting = SettingsManager.getInstance().getSetting(SettingsManager.WORKSHOP_CACHE_TTL_HOURS);
+        long ttlHours = DEFAULT_WORKSHOP_CACHE_TTL_HOURS;
+        if (setting != null) {
+            try {
+                ttlHours = Long.parseLong(setting.trim());
+            } catch (NumberFormatException e) {
+                logger.error("{} is not a number of hours: \"{}\"", SettingsManager.WORKSHOP_CACHE_TTL_HOURS, setting);
+            }
+        }
+        return TimeUnit.HOURS.toMillis(ttlHours);
+    }
+
+    /**
+     * Writes the workshop cache and the digest cache to disk.
+     */
+    public void saveCaches() {
+        WorkshopCacheManager.getInstance().saveData();
+        DigestCacheManager.getInstance().saveData();
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Updates a modFile in place by rewriting only the fixed-size blocks that differ from the new modFile.
+ * Before any block is overwritten, its old content is written to an undo file next to the target. An update that
+ * was interrupted is rolled back from that undo file, so the target never stays half-written.
+ */
+public final class DeltaPatcher {
+    private static final Logger logger = LogManager.getLogger("DeltaPatcher");
+    public static final int BLOCK_SIZE = 1024 * 1024;
+    private static final String UNDO_FILE_SUFFIX = ".undo";
+
+    private DeltaPatcher() {
+
+    }
+
+    /**
+     * Rewrites the changed blocks of the target so it equals the source.
+     * @param progressConsumer receives the number of source bytes compared after every block. It may throw to abort
+     *                         the patch, which is only called before anything was written
+     * @return the number of bytes written to the target
+     */
+    public static long patch(Path source, Path target, LongConsumer progressConsumer) throws IOException {
+        recover(target);
+        try {
+            long bytesWritten = writePatch(source, target, progressConsumer);
+            Files.deleteIfExists(getUndoPath(target));
+            return bytesWritten;
+        } catch (IOException e) {
+            // the target may be half-written, e.g. after an interrupt closed it or the disk ran full, so it is rolled
+            // back right away. The interrupt status is cleared meanwhile, as it would close the channels of the roll
+            // back as well
+            boolean isInterrupted = e instanceof ClosedByInterruptException && Thread.interrupted();
+            try {
+                recover(target);
+            } catch (IOException recoverException) {
+                e.addSuppressed(recoverException);
+            } finally {
+                if (isInterrupted) Thread.currentThread().interrupt();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Does all of the patch but deleting the undo file, so the target is left as by a crash right before the end.
+     */
+    static long writePatch(Path source, Path target, LongConsumer progressConsumer) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long sourceSize = in.size();
+            long targetSize = out.size();
+            List<Long> changedBlocks = findChangedBlocks(in, out, progressConsumer);
+            if (changedBlocks.isEmpty() && sourceSize == targetSize) return 0;
+
+            Path undoPath = getUndoPath(target);
+            writeUndoFile(out, undoPath, sourceSize, targetSize, changedBlocks);
+            long bytesWritten = 0;
+            ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            for (long position : changedBlocks) {
+                block.clear();
+                readBlock(in, position, block);
+                bytesWritten += block.remaining();
+                writeBlock(out, position, block);
+            }
+            out.truncate(sourceSize);
+            out.force(true);
+            logger.debug("patched {} of {} blocks of \"{}\"", changedBlocks.size(),
+                    (sourceSize + BLOCK_SIZE - 1) / BLOCK_SIZE, target);
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * Returns the positions of all blocks of the source that are missing from or differ in the target.
+     */
+    private static List<Long> findChangedBlocks(FileChannel in, FileChannel out, LongConsumer progressConsumer)
+            throws IOException {
+        List<Long> changedBlocks = new ArrayList<>();
+        ByteBuffer sourceBlock = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        ByteBuffer targetBlock = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        long sourceSize = in.size();
+        for (long position = 0; position < sourceSize; position += BLOCK_SIZE) {
+            sourceBlock.clear();
+            targetBlock.clear();
+            readBlock(in, position, sourceBlock);
+            readBlock(out, position, targetBlock);
+            if (!sourceBlock.equals(targetBlock)) changedBlocks.add(position);
+            progressConsumer.accept(sourceBlock.remaining());
+        }
+        return changedBlocks;
+    }
+
+    /**
+     * Stores the original size and the original content of all changed blocks, forced to the disk. If the source is
+     * shorter, the tail of the target that is cut off is stored as well.
+     */
+    private static void writeUndoFile(FileChannel out, Path undoPath, long sourceSize, long targetSize,
+                                      List<Long> changedBlocks) throws IOException {
+        try (FileChannel undo = FileChannel.open(undoPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+            header.putLong(targetSize).flip();
+            undo.write(header);
+            ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            for (long position : changedBlocks) {
+                if (position >= targetSize) continue;
+                writeUndoBlock(out, undo, position, header, block);
+            }
+            for (long position = sourceSize; position < targetSize; position += BLOCK_SIZE) {
+                writeUndoBlock(out, undo, position, header, block);
+            }
+            undo.force(true);
+        }
+    }
+
+    /**
+     * Appends the position, the length and the original content of the block at the position to the undo file.
+     */
+    private static void writeUndoBlock(FileChannel out, FileChannel undo, long position, ByteBuffer header,
+                                       ByteBuffer block) throws IOException {
+        block.clear();
+        readBlock(out, position, block);
+        header.clear();
+        header.putLong(position).putInt(block.remaining()).flip();
+        undo.write(header);
+        while (block.hasRemaining()) {
+            undo.write(block);
+        }
+    }
+
+    /**
+     * Rolls back an interrupted patch of the target, if there is one.
+     */
+    public static void recover(Path target) throws IOException {
+        Path undoPath = getUndoPath(target);
+        if (!Files.exists(undoPath)) return;
+        if (!Files.exists(target)) {
+            logger.info("deleting undo file of removed \"{}\"", target);
+            Files.delete(undoPath);
+            return;
+        }
+        logger.info("rolling back interrupted update of \"{}\"", target);
+        try (FileChannel undo = FileChannel.open(undoPath, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+            header.limit(Long.BYTES);
+            if (readFully(undo, header)) {
+                header.flip();
+                long originalSize = header.getLong();
+                ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+                while (true) {
+                    header.clear();
+                    if (!readFully(undo, header)) break;
+                    header.flip();
+                    long position = header.getLong();
+                    block.clear().limit(header.getInt());
+                    if (!readFully(undo, block)) break;
+                    block.flip();
+                    writeBlock(out, position, block);
+                }
+                out.truncate(originalSize);
+                out.force(true);
+            }
+        }
+        Files.delete(undoPath);
+    }
+
+    /**
+     * Rolls back every interrupted patch in the directory.
+     */
+    public static void recoverInterruptedPatches(Path dir) {
+        if (!Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> undoPaths = Files.newDirectoryStream(dir, "*" + UNDO_FILE_SUFFIX)) {
+            for (Path undoPath : undoPaths) {
+                String undoName = undoPath.getFileName().toString();
+                Path target = undoPath.resolveSibling(
+                        undoName.substring(0, undoName.length() - UNDO_FILE_SUFFIX.length()));
+                try {
+                    recover(target);
+                } catch (IOException e) {
+                    logger.error("unable to roll back interrupted update of \"{}\"", target, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("unable to roll back interrupted updates in {}", dir, e);
+        }
+    }
+
+    /**
+     * Deletes the undo file of the target, which must be done whenever the target is replaced as a whole.
+     * Otherwise a later roll back would write the old blocks into the new file.
+     */
+    public static void discardUndoFile(Path target) throws IOException {
+        Files.deleteIfExists(getUndoPath(target));
+    }
+
+    private static Path getUndoPath(Path target) {
+        return target.resolveSibling(target.getFileName() + UNDO_FILE_SUFFIX);
+    }
+
+    /**
+     * Reads the block at the position, leaving the buffer flipped. The block is shorter at the end of the file.
+     */
+    private static void readBlock(FileChannel channel, long position, ByteBuffer block) throws IOException {
+        while (block.hasRemaining()) {
+            int read = channel.read(block, position + block.position());
+            if (read < 0) break;
+        }
+        block.flip();
+    }
+
+    private static void writeBlock(FileChannel channel, long position, ByteBuffer block) throws IOException {
+        while (block.hasRemaining()) {
+            channel.write(block, position + block.position());
+        }
+    }
+
+    /**
+     * Reads until the buffer is full, returns {@code false} if the channel ended before.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) return false;
+        }
+        return true;
+    }
+}
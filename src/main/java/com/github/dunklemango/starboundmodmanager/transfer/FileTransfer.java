@@ -0,0 +1,313 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+import com.github.dunklemango.starboundmodmanager.format.ByteFormatter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Copies modFiles on a bounded executor, sized by the {@link StorageType} of the target.
+ * Progress is reported in bytes copied against the total bytes, the message holds throughput and remaining time.
+ * The transfer can be cancelled between files and between chunks of a file. It does not depend on any UI,
+ * {@link FileTransferTask} runs it as JavaFX task.
+ */
+public class FileTransfer {
+    private static final Logger logger = LogManager.getLogger("FileTransfer");
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    // below this size a full copy is about as cheap as comparing the blocks
+    private static final long DELTA_MIN_SIZE = 16L * 1024 * 1024;
+    private final List<File> inputFiles;
+    private final List<File> outputFiles;
+    private final StorageType targetStorageType;
+    private final TransferMode transferMode;
+    private final AtomicLong bytesCopied = new AtomicLong();
+    private long totalBytes;
+    private long startTime;
+    private BooleanSupplier cancelRequest = () -> false;
+    private TransferProgressListener progressListener = (bytesCopied, totalBytes, message) -> { };
+    private volatile TransferTaskInformation information = new TransferTaskInformation();
+
+    public FileTransfer(List<File> inputFiles, List<File> outputFiles, StorageType targetStorageType,
+                            TransferMode transferMode) {
+        if (inputFiles.size() != outputFiles.size()) throw new IllegalArgumentException("Size of inputFiles must match that of outputFiles!");
+        this.inputFiles = inputFiles;
+        this.outputFiles = outputFiles;
+        this.targetStorageType = targetStorageType;
+        this.transferMode = transferMode;
+    }
+
+    public FileTransfer(List<File> inputFiles, List<File> outputFiles, StorageType targetStorageType) {
+        this(inputFiles, outputFiles, targetStorageType, TransferMode.COPY);
+    }
+
+    public FileTransfer(List<File> inputFiles, List<File> outputFiles) {
+        this(inputFiles, outputFiles, StorageType.SSD);
+    }
+
+    public FileTransfer(File inputFile, File outputFile) {
+        this.inputFiles = new ArrayList<>();
+        this.outputFiles = new ArrayList<>();
+        this.inputFiles.add(inputFile);
+        this.outputFiles.add(outputFile);
+        this.targetStorageType = StorageType.SSD;
+        this.transferMode = TransferMode.COPY;
+    }
+
+    /**
+     * Transfers the files on the calling thread and returns the information about the transfer.
+     * Once cancellation is requested, no further file is started and running copies are interrupted. The transfer
+     * only returns, or throws, once all of its workers stopped.
+     * @param cancelRequest polled between files and chunks, the transfer stops once it returns {@code true}
+     * @param progressListener called from the transferring threads
+     */
+    public TransferTaskInformation transfer(BooleanSupplier cancelRequest, TransferProgressListener progressListener)
+            throws InterruptedException, ExecutionException {
+        this.cancelRequest = cancelRequest;
+        this.progressListener = progressListener;
+        TransferTaskInformation info = new TransferTaskInformation();
+        information = info;
+        totalBytes = 0;
+        inputFiles.forEach(inputFile -> totalBytes += inputFile.length());
+        startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(targetStorageType.getParallelTransfers(), runnable -> {
+            Thread thread = new Thread(runnable, "file-transfer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < inputFiles.size(); i++) {
+                File inputFile = inputFiles.get(i);
+                File outputFile = outputFiles.get(i);
+                futures.add(executor.submit(() -> transferFile(inputFile, outputFile, info)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof CancellationException)) throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            // cancelling a task interrupts the wait
+            if (!isCancelled()) throw e;
+        } finally {
+            stopWorkers(executor);
+            info.setWallTimeNanos(System.nanoTime() - startTime);
+        }
+        if (isCancelled()) {
+            logger.info("transfer cancelled after {} of {}", ByteFormatter.formatBytes(bytesCopied.get()),
+                    ByteFormatter.formatBytes(totalBytes));
+        }
+        return info;
+    }
+
+    /**
+     * Returns the information about the files transferred so far, which is all of them once the transfer returned.
+     * After a failed or cancelled transfer it still holds the files transferred until then.
+     */
+    public TransferTaskInformation getInformation() {
+        return information;
+    }
+
+    private boolean isCancelled() {
+        return cancelRequest.getAsBoolean();
+    }
+
+    /**
+     * Interrupts the workers that are still transferring and waits until all of them stopped,
+     * so no file is written anymore once the transfer is reported.
+     */
+    private static void stopWorkers(ExecutorService executor) {
+        executor.shutdownNow();
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) break;
+                logger.debug("waiting for the running transfers to stop");
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Transfers a single file and records its telemetry. An output that already is the input is skipped.
+     */
+    private void transferFile(File inputFile, File outputFile, TransferTaskInformation info) {
+        if (isCancelled()) return;
+        if (inputFile.exists() && inputFile.isFile() && outputFile.getName().endsWith(".pak")) {
+            long fileStartTime = System.nanoTime();
+            try {
+                logger.debug("outputFile {}.", (outputFile.exists()) ? "exists" : "does not exist");
+                if (outputFile.exists() && Files.isSameFile(inputFile.toPath(), outputFile.toPath())) {
+                    logger.debug("outputFile \"{}\" already is \"{}\", skipping it.", outputFile, inputFile);
+                    reportProgress(inputFile.length());
+                    info.record(new FileTransferRecord(inputFile, TransferMethod.LINK, 0,
+                            System.nanoTime() - fileStartTime, true));
+                } else if (isDeltaApplicable(inputFile, outputFile)) {
+                    logger.debug("patching file \"{}\" from \"{}\".", outputFile, inputFile);
+                    long bytesWritten = DeltaPatcher.patch(inputFile.toPath(), outputFile.toPath(), compared -> {
+                        checkCancelled();
+                        reportProgress(compared);
+                    });
+                    info.record(new FileTransferRecord(inputFile, TransferMethod.DELTA, bytesWritten,
+                            System.nanoTime() - fileStartTime, bytesWritten == 0));
+                } else {
+                    logger.debug("copying file from \"{}\" to \"{}\".", inputFile, outputFile);
+                    TransferMethod method = install(inputFile, outputFile);
+                    info.record(new FileTransferRecord(inputFile, method,
+                            (method == TransferMethod.LINK) ? 0 : inputFile.length(),
+                            System.nanoTime() - fileStartTime, false));
+                }
+            } catch (ClosedByInterruptException e) {
+                // the transfer was cancelled, the partial file is discarded like on any other cancel
+                logger.debug("transfer of \"{}\" was interrupted", inputFile);
+            } catch (IOException e) {
+                info.put(inputFile, e);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the output is a large regular file of its own that can be patched in place.
+     * Linked outputs are never patched, as that would change the file they link to.
+     */
+    private boolean isDeltaApplicable(File inputFile, File outputFile) {
+        if (transferMode != TransferMode.DELTA) return false;
+        Path outputPath = outputFile.toPath();
+        if (Files.isSymbolicLink(outputPath) || !Files.isRegularFile(outputPath)) return false;
+        return inputFile.length() >= DELTA_MIN_SIZE;
+    }
+
+    /**
+     * Creates the new modFile as temporary file next to the output and then atomically moves it over the output.
+     * The output therefore always is either the old or the new modFile, even if the application crashes.
+     * Returns the method the modFile was installed with.
+     */
+    private TransferMethod install(File inputFile, File outputFile) throws IOException {
+        Path outputPath = outputFile.toPath();
+        Path tempPath = createTempFile(outputPath.toAbsolutePath());
+        try {
+            TransferMethod method = TransferMethod.LINK;
+            if (transferMode != TransferMode.LINK || !link(inputFile, tempPath)) {
+                copy(inputFile, tempPath);
+                method = TransferMethod.COPY;
+            }
+            try {
+                Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                logger.info("atomic move to \"{}\" not supported, replacing it non-atomically", outputFile);
+                Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            DeltaPatcher.discardUndoFile(outputPath);
+            return method;
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Creates an empty, uniquely named file next to the output. Unlike {@link Files#createTempFile}, which restricts
+     * the file to its owner on POSIX, the file gets the default permissions, which the installed modFile keeps.
+     */
+    private static Path createTempFile(Path outputPath) throws IOException {
+        while (true) {
+            Path tempPath = outputPath.resolveSibling(outputPath.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + TEMP_FILE_SUFFIX);
+            try {
+                Files.newByteChannel(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return tempPath;
+            } catch (FileAlreadyExistsException e) {
+                logger.debug("temporary file \"{}\" already exists, trying another name", tempPath);
+            }
+        }
+    }
+
+    /**
+     * Replaces the temporary file with a hard link to the input, or a symbolic link if hard links are not possible.
+     * Returns {@code false} if neither is supported, leaving the temporary file in place for a copy.
+     */
+    private boolean link(File inputFile, Path tempPath) throws IOException {
+        Path inputPath = inputFile.toPath().toAbsolutePath();
+        Files.delete(tempPath);
+        try {
+            Files.createLink(tempPath, inputPath);
+            logger.debug("hard linked \"{}\"", inputFile);
+        } catch (UnsupportedOperationException | IOException hardLinkException) {
+            try {
+                Files.createSymbolicLink(tempPath, inputPath);
+                logger.debug("symbolically linked \"{}\", hard link failed: {}", inputFile, hardLinkException.toString());
+            } catch (UnsupportedOperationException | IOException symbolicLinkException) {
+                logger.info("unable to link \"{}\", copying it instead: {}", inputFile,
+                        symbolicLinkException.toString());
+                Files.createFile(tempPath);
+                return false;
+            }
+        }
+        reportProgress(inputFile.length());
+        return true;
+    }
+
+    /**
+     * Copies the file chunk by chunk with zero-copy transfers, reporting the progress after every chunk.
+     * The copy is forced to the disk before returning.
+     */
+    private void copy(File inputFile, Path outputPath) throws IOException {
+        try (FileChannel in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(outputPath, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+                if (transferred <= 0) throw new IOException("unexpected end of " + inputFile);
+                position += transferred;
+                reportProgress(transferred);
+                checkCancelled();
+            }
+            out.force(true);
+        }
+    }
+
+    /**
+     * Aborts the transfer of the current file by throwing, the partial copy is then discarded by {@link #install}.
+     */
+    private void checkCancelled() {
+        if (isCancelled()) throw new CancellationException("transfer cancelled");
+    }
+
+    private void reportProgress(long transferred) {
+        long copied = bytesCopied.addAndGet(transferred);
+        double elapsedSeconds = Math.max((System.nanoTime() - startTime) / 1e9, 1e-3);
+        long bytesPerSecond = (long) (copied / elapsedSeconds);
+        long secondsLeft = (bytesPerSecond > 0) ? (totalBytes - copied) / bytesPerSecond : 0;
+        progressListener.onProgress(copied, totalBytes, String.format("%s of %s, %s/s, %s left",
+                ByteFormatter.formatBytes(copied),
+                ByteFormatter.formatBytes(totalBytes), ByteFormatter.formatBytes(bytesPerSecond),
+                ByteFormatter.formatDuration(secondsLeft)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+
+/**
+ * Telemetry of the transfer of a single modFile.
+ */
+public class FileTransferRecord {
+    private static final Logger logger = LogManager.getLogger("FileTransferRecord");
+    private static final String PARSE_FILE = "file";
+    private static final String PARSE_METHOD = "method";
+    private static final String PARSE_BYTES = "bytes";
+    private static final String PARSE_WALL_TIME_MILLIS = "wall_time_ms";
+    private static final String PARSE_BYTES_PER_SECOND = "bytes_per_second";
+    private static final String PARSE_SKIPPED = "skipped";
+    private final File file;
+    private final TransferMethod method;
+    private final long bytes;
+    private final long wallTimeNanos;
+    private final boolean isSkipped;
+
+    /**
+     * @param bytes the number of bytes written to the output, zero for links and skipped files
+     * @param isSkipped whether the output already had the content of the input and was left untouched
+     */
+    public FileTransferRecord(File file, TransferMethod method, long bytes, long wallTimeNanos, boolean isSkipped) {
+        this.file = file;
+        this.method = method;
+        this.bytes = bytes;
+        this.wallTimeNanos = wallTimeNanos;
+        this.isSkipped = isSkipped;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public TransferMethod getMethod() {
+        return method;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public boolean isSkipped() {
+        return isSkipped;
+    }
+
+    public long getBytesPerSecond() {
+        return toBytesPerSecond(bytes, wallTimeNanos);
+    }
+
+    static long toBytesPerSecond(long bytes, long nanos) {
+        return (nanos > 0) ? (long) (bytes / (nanos / 1e9)) : 0;
+    }
+
+    public JSONObject toJsonObject() {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put(PARSE_FILE, file.getAbsolutePath());
+            obj.put(PARSE_METHOD, method.name().toLowerCase());
+            obj.put(PARSE_BYTES, bytes);
+            obj.put(PARSE_WALL_TIME_MILLIS, wallTimeNanos / 1000000);
+            obj.put(PARSE_BYTES_PER_SECOND, getBytesPerSecond());
+            obj.put(PARSE_SKIPPED, isSkipped);
+            return obj;
+        } catch (JSONException e) {
+            logger.error("unable to convert transfer record of {} to JSON", file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s, %d bytes in %d ms%s", file, method, bytes, wallTimeNanos / 1000000,
+                isSkipped ? ", skipped" : "");
+    }
+}
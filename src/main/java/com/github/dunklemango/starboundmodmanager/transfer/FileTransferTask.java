@@ -2,34 +2,39 @@ package com.github.dunklemango.starboundmodmanager.transfer;
 
 import javafx.concurrent.Task;
 import javafx.scene.control.ProgressBar;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Runs a {@link FileTransfer} as JavaFX task, reporting its progress and message through the task properties.
+ * Cancelling the task cancels the transfer. The task already counts as cancelled while the transfer is still
+ * stopping, use {@link #getCompletion()} to learn what was transferred until then.
+ */
 public class FileTransferTask extends Task<TransferTaskInformation> {
-    private static final Logger logger = LogManager.getLogger("FileTransferTask");
-    private final List<File> inputFiles;
-    private final List<File> outputFiles;
-    private final double progressPerStep;
+    private final FileTransfer fileTransfer;
+    private final CompletableFuture<TransferTaskInformation> completion = new CompletableFuture<>();
+
+    public FileTransferTask(FileTransfer fileTransfer) {
+        this.fileTransfer = fileTransfer;
+    }
+
+    public FileTransferTask(List<File> inputFiles, List<File> outputFiles, StorageType targetStorageType,
+                            TransferMode transferMode) {
+        this(new FileTransfer(inputFiles, outputFiles, targetStorageType, transferMode));
+    }
+
+    public FileTransferTask(List<File> inputFiles, List<File> outputFiles, StorageType targetStorageType) {
+        this(new FileTransfer(inputFiles, outputFiles, targetStorageType));
+    }
 
     public FileTransferTask(List<File> inputFiles, List<File> outputFiles) {
-        if (inputFiles.size() != outputFiles.size()) throw new IllegalArgumentException("Size of inputFiles must match that of outputFiles!");
-        this.inputFiles = inputFiles;
-        this.outputFiles = outputFiles;
-        this.progressPerStep = 1.0 / inputFiles.size();
+        this(new FileTransfer(inputFiles, outputFiles));
     }
 
     public FileTransferTask(File inputFile, File outputFile) {
-        this.inputFiles = new ArrayList<>();
-        this.outputFiles = new ArrayList<>();
-        this.inputFiles.add(inputFile);
-        this.outputFiles.add(outputFile);
-        this.progressPerStep = 1.0;
+        this(new FileTransfer(inputFile, outputFile));
     }
 
     public void transferFiles(ProgressBar progressBar) {
@@ -40,28 +45,26 @@ public class FileTransferTask extends Task<TransferTaskInformation> {
         thread.start();
     }
 
+    /**
+     * Completes with the information about the transferred files once the transfer stopped, no matter whether it
+     * succeeded, failed or was cancelled. It is completed on the transferring thread.
+     */
+    public CompletableFuture<TransferTaskInformation> getCompletion() {
+        return completion;
+    }
+
     @Override
     protected TransferTaskInformation call() throws Exception {
-        TransferTaskInformation info = new TransferTaskInformation();
-        double progress = 0.0;
-        for (int i = 0; i < inputFiles.size(); i++) {
-            File inputFile = inputFiles.get(i);
-            File outputFile = outputFiles.get(i);
-            if (inputFile.exists() && inputFile.isFile() && outputFile.getName().endsWith(".pak")) {
-                try {
-                    logger.debug("outputFile {}.", (outputFile.exists()) ? "exists" : "does not exist");
-                    Files.deleteIfExists(outputFile.toPath());
-                    logger.debug("copying file from \"{}\" to \"{}\".", inputFile, outputFile);
-                    Files.copy(inputFile.toPath(), outputFile.toPath());
-                } catch (IOException e) {
-                    info.put(inputFile, e);
-                }
-            }
-            progress += progressPerStep;
-            updateProgress(progress, 1.0);
+        try {
+            TransferTaskInformation info = fileTransfer.transfer(this::isCancelled,
+                    (bytesCopied, totalBytes, message) -> {
+                        updateProgress(bytesCopied, Math.max(totalBytes, 1));
+                        updateMessage(message);
+                    });
+            if (!isCancelled()) updateProgress(1.0, 1.0);
+            return info;
+        } finally {
+            completion.complete(fileTransfer.getInformation());
         }
-        progress = 1.0;
-        updateProgress(progress, 1.0);
-        return info;
     }
 }
@@ -0,0 +1,30 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+/**
+ * Kind of storage the modFiles are transferred to, deciding how many files are copied at the same time.
+ * Rotating disks lose throughput when seeking between several files, so they copy one file at a time.
+ */
+public enum StorageType {
+    SSD(4),
+    HDD(1);
+
+    private final int parallelTransfers;
+
+    StorageType(int parallelTransfers) {
+        this.parallelTransfers = parallelTransfers;
+    }
+
+    public int getParallelTransfers() {
+        return parallelTransfers;
+    }
+
+    /**
+     * Returns the storageType of the setting, or {@link #SSD} if the setting is missing or unknown.
+     */
+    public static StorageType fromSetting(String setting) {
+        for (StorageType type : values()) {
+            if (type.name().equalsIgnoreCase(setting)) return type;
+        }
+        return SSD;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+/**
+ * How a single modFile was actually transferred, which may differ from the requested {@link TransferMode}.
+ */
+public enum TransferMethod {
+    COPY,
+    LINK,
+    DELTA
+}
@@ -0,0 +1,30 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+/**
+ * How modFiles are installed into the mods directory.
+ */
+public enum TransferMode {
+    /**
+     * Copies every modFile.
+     */
+    COPY,
+    /**
+     * Hard links every modFile, or symbolically links it if hard links are not possible, and copies it if the
+     * file system supports neither.
+     */
+    LINK,
+    /**
+     * Rewrites only the changed blocks of a modFile that is already installed, and copies every other modFile.
+     */
+    DELTA;
+
+    /**
+     * Returns the transferMode of the setting, or {@link #COPY} if the setting is missing or unknown.
+     */
+    public static TransferMode fromSetting(String setting) {
+        for (TransferMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(setting)) return mode;
+        }
+        return COPY;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+/**
+ * Receives the progress of a {@link FileTransfer}.
+ */
+public interface TransferProgressListener {
+    /**
+     * @param message human-readable progress including throughput and remaining time
+     */
+    void onProgress(long bytesCopied, long totalBytes, String message);
+}
@@ -1,18 +1,51 @@
 package com.github.dunklemango.starboundmodmanager.transfer;
 
+import com.github.dunklemango.starboundmodmanager.format.ByteFormatter;
+import com.github.dunklemango.starboundmodmanager.storage.FileManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Collects the faulting files and the per-file telemetry of a transfer, and summarizes them.
+ */
 public class TransferTaskInformation {
     private static final Logger logger = LogManager.getLogger("TransferTaskInformation");
+    public static final String REPORT_FILE_PATH = FileManager.DIR_PATH + "\\lastTransfer.json";
+    private static final String PARSE_FILES = "files";
+    private static final String PARSE_TRANSFERRED = "transferred";
+    private static final String PARSE_SKIPPED = "skipped";
+    private static final String PARSE_FAILED = "failed";
+    private static final String PARSE_BYTES = "bytes";
+    private static final String PARSE_WALL_TIME_MILLIS = "wall_time_ms";
+    private static final String PARSE_BYTES_PER_SECOND = "bytes_per_second";
+    private static final String PARSE_METHODS = "methods";
+    private static final String PARSE_RECORDS = "records";
+    private static final String PARSE_FAULTING_FILES = "faulting_files";
+    private static final String PARSE_FILE = "file";
+    private static final String PARSE_ERROR = "error";
     private Map<File, Exception> faultingFiles;
+    private Collection<FileTransferRecord> records;
+    private long wallTimeNanos;
 
     public TransferTaskInformation() {
-        faultingFiles = new HashMap<>();
+        faultingFiles = new ConcurrentHashMap<>();
+        records = new ConcurrentLinkedQueue<>();
     }
 
     public void put(File key, Exception value) {
@@ -20,7 +53,39 @@ public class TransferTaskInformation {
         this.faultingFiles.put(key, value);
     }
 
+    public boolean hasFaultingFiles() {
+        return !faultingFiles.isEmpty();
+    }
+
+    public void record(FileTransferRecord record) {
+        records.add(record);
+    }
+
+    public List<FileTransferRecord> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * Sets the wall time of the whole transfer, which is shorter than the sum of the files transferred in parallel.
+     */
+    public void setWallTimeNanos(long wallTimeNanos) {
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (FileTransferRecord record : records) {
+            bytes += record.getBytes();
+        }
+        return bytes;
+    }
+
     public void print() {
+        logSummary();
         if (faultingFiles.isEmpty()) {
             logger.debug("All files were transferred successfully.");
             return;
@@ -30,4 +95,91 @@ public class TransferTaskInformation {
             logger.error("[FTTI] File \"{}\" caused an error:", file, exception);
         });
     }
+
+    private void logSummary() {
+        int skipped = 0;
+        for (FileTransferRecord record : records) {
+            if (record.isSkipped()) skipped++;
+            logger.debug("transferred {}", record);
+        }
+        logger.info("transferred {} files ({} skipped as unchanged, {} failed), {} in {} ms, {}/s",
+                records.size() - skipped, skipped, faultingFiles.size(), ByteFormatter.formatBytes(getBytes()),
+                wallTimeNanos / 1000000,
+                ByteFormatter.formatBytes(FileTransferRecord.toBytesPerSecond(getBytes(), wallTimeNanos)));
+    }
+
+    /**
+     * Returns the aggregate summary, the totals per {@link TransferMethod}, all records and all faulting files.
+     */
+    public JSONObject toJsonObject() {
+        JSONObject obj = new JSONObject();
+        try {
+            Map<TransferMethod, long[]> totalsOfMethods = new EnumMap<>(TransferMethod.class);
+            JSONArray recordArray = new JSONArray();
+            int skipped = 0;
+            for (FileTransferRecord record : records) {
+                if (record.isSkipped()) skipped++;
+                // files, bytes and summed wall time of the method
+                long[] totals = totalsOfMethods.computeIfAbsent(record.getMethod(), method -> new long[3]);
+                totals[0]++;
+                totals[1] += record.getBytes();
+                totals[2] += record.getWallTimeNanos();
+                recordArray.put(record.toJsonObject());
+            }
+            JSONObject methods = new JSONObject();
+            for (Map.Entry<TransferMethod, long[]> entry : totalsOfMethods.entrySet()) {
+                long[] totals = entry.getValue();
+                JSONObject method = new JSONObject();
+                method.put(PARSE_FILES, totals[0]);
+                method.put(PARSE_BYTES, totals[1]);
+                method.put(PARSE_WALL_TIME_MILLIS, totals[2] / 1000000);
+                method.put(PARSE_BYTES_PER_SECOND, FileTransferRecord.toBytesPerSecond(totals[1], totals[2]));
+                methods.put(entry.getKey().name().toLowerCase(), method);
+            }
+            JSONArray faultingArray = new JSONArray();
+            for (Map.Entry<File, Exception> entry : faultingFiles.entrySet()) {
+                JSONObject faultingFile = new JSONObject();
+                faultingFile.put(PARSE_FILE, entry.getKey().getAbsolutePath());
+                faultingFile.put(PARSE_ERROR, entry.getValue().toString());
+                faultingArray.put(faultingFile);
+            }
+
+            obj.put(PARSE_FILES, records.size() + faultingFiles.size());
+            obj.put(PARSE_TRANSFERRED, records.size() - skipped);
+            obj.put(PARSE_SKIPPED, skipped);
+            obj.put(PARSE_FAILED, faultingFiles.size());
+            obj.put(PARSE_BYTES, getBytes());
+            obj.put(PARSE_WALL_TIME_MILLIS, wallTimeNanos / 1000000);
+            obj.put(PARSE_BYTES_PER_SECOND, FileTransferRecord.toBytesPerSecond(getBytes(), wallTimeNanos));
+            obj.put(PARSE_METHODS, methods);
+            obj.put(PARSE_RECORDS, recordArray);
+            obj.put(PARSE_FAULTING_FILES, faultingArray);
+            return obj;
+        } catch (JSONException e) {
+            logger.error("unable to convert transfer information to JSON", e);
+            return null;
+        }
+    }
+
+    public void exportToJson(Path path) throws IOException {
+        JSONObject obj = toJsonObject();
+        if (obj == null) return;
+        try {
+            Files.write(path, obj.toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("unable to format transfer information", e);
+        }
+    }
+
+    /**
+     * Exports the information to {@link #REPORT_FILE_PATH}, replacing the report of the previous transfer.
+     */
+    public void saveReport() {
+        if (!FileManager.createDirectories(FileManager.DIR_PATH)) return;
+        try {
+            exportToJson(new File(REPORT_FILE_PATH).toPath());
+        } catch (IOException e) {
+            logger.error("{} could not be written.", REPORT_FILE_PATH, e);
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops requests to a service that keeps failing. After {@code failureThreshold} consecutive failures the circuit
+ * opens and rejects all requests for the open duration. Then a single trial request is let through, which closes
+ * the circuit again if it succeeds and reopens it otherwise. A trial whose outcome is not recorded within the open
+ * duration is given up, and the next caller sends a new one.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LogManager.getLogger("CircuitBreaker");
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt;
+    private long trialStartedAt;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, long openDuration, TimeUnit unit) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold must be at least 1!");
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+    }
+
+    /**
+     * Returns whether a request may be sent now. Once the open duration has passed, only the first caller is
+     * allowed to send its request as trial, until its outcome is recorded or the open duration has passed again.
+     */
+    public synchronized boolean allowRequest() {
+        long now = System.nanoTime();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openNanos) return false;
+                state = State.HALF_OPEN;
+                trialStartedAt = now;
+                logger.info("circuit {} is half-open, sending a trial request", name);
+                return true;
+            default:
+                if (now - trialStartedAt < openNanos) return false;
+                trialStartedAt = now;
+                logger.warn("trial request of circuit {} got no outcome, sending another one", name);
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) logger.info("circuit {} is closed again", name);
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("circuit {} is open after {} consecutive failures", name, consecutiveFailures);
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
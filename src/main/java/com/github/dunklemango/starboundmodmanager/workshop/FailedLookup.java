@@ -0,0 +1,81 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Negative cache entry of a workshopItem whose details could not be fetched.
+ * Consecutive failures back off exponentially, so dead ids are not requested on every scan.
+ */
+public class FailedLookup {
+    private static final Logger logger = LogManager.getLogger("FailedLookup");
+    private static final String PARSE_ID = "id";
+    private static final String PARSE_REASON = "reason";
+    private static final String PARSE_FAILURE_COUNT = "failure_count";
+    private static final String PARSE_RETRY_AFTER = "retry_after";
+    private final Integer id;
+    private LookupFailureReason reason;
+    private int failureCount = 0;
+    private long retryAfter = 0;
+
+    public FailedLookup(Integer id) {
+        this.id = id;
+    }
+
+    public FailedLookup(JSONObject obj) throws JSONException {
+        this.id = obj.getInt(PARSE_ID);
+        this.reason = LookupFailureReason.fromName(obj.optString(PARSE_REASON));
+        this.failureCount = obj.optInt(PARSE_FAILURE_COUNT, 1);
+        this.retryAfter = obj.optLong(PARSE_RETRY_AFTER);
+    }
+
+    /**
+     * Records another failure and moves the next lookup back by the delay of the reason.
+     */
+    public void fail(LookupFailureReason reason, long now) {
+        this.reason = reason;
+        this.failureCount++;
+        this.retryAfter = now + reason.getRetryDelayMillis(failureCount);
+        logger.debug("lookup of workshopItem {} failed {} times ({}), retrying after {}", id, failureCount, reason,
+                retryAfter);
+    }
+
+    /**
+     * Returns whether the workshopItem may be requested again at {@code now}.
+     */
+    public boolean isDue(long now) {
+        return now >= retryAfter;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public LookupFailureReason getReason() {
+        return reason;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    public JSONObject toJsonObject() throws JSONException {
+        JSONObject obj = new JSONObject();
+        obj.put(PARSE_ID, id);
+        obj.put(PARSE_REASON, reason.name().toLowerCase());
+        obj.put(PARSE_FAILURE_COUNT, failureCount);
+        obj.put(PARSE_RETRY_AFTER, retryAfter);
+        return obj;
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + reason + ", " + failureCount + " failures, retry after " + retryAfter + ")";
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Why the details of a workshopItem could not be fetched, and how long to wait before asking Steam again.
+ */
+public enum LookupFailureReason {
+    /**
+     * The request failed or Steam did not answer for the id, which usually passes quickly.
+     */
+    REQUEST_FAILED(TimeUnit.MINUTES.toMillis(1), TimeUnit.HOURS.toMillis(1)),
+    /**
+     * Steam answered without details, as the workshopItem was removed or hidden.
+     */
+    NOT_FOUND(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(7));
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+
+    LookupFailureReason(long initialDelayMillis, long maxDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Returns the delay before the next lookup, doubled with every consecutive failure up to the maximum delay.
+     */
+    public long getRetryDelayMillis(int failureCount) {
+        int doublings = Math.max(0, Math.min(failureCount - 1, 30));
+        return Math.min(initialDelayMillis << doublings, maxDelayMillis);
+    }
+
+    /**
+     * Returns the reason of the name, or {@link #REQUEST_FAILED} if the name is unknown.
+     */
+    public static LookupFailureReason fromName(String name) {
+        for (LookupFailureReason reason : values()) {
+            if (reason.name().equalsIgnoreCase(name)) return reason;
+        }
+        return REQUEST_FAILED;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter. Tokens are refilled at a steady rate up to the capacity of the bucket,
+ * so short bursts pass right away while the long-term rate never exceeds the refill rate.
+ */
+public class TokenBucket {
+    private final long capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillTime;
+
+    public TokenBucket(long capacity, double tokensPerSecond) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1!");
+        if (tokensPerSecond <= 0) throw new IllegalArgumentException("tokensPerSecond must be positive!");
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, waiting until one is refilled if the bucket is empty.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token if there is one and returns 0, or returns the nanoseconds until the next token is refilled.
+     */
+    public synchronized long tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillTime) * tokensPerNano);
+        lastRefillTime = now;
+    }
+}
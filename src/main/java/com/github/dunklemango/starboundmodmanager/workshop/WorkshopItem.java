@@ -6,47 +6,68 @@ import org.apache.logging.log4j.Logger;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+/**
+ * Compact projection of the Steam "publishedfiledetails" of a workshopItem.
+ * Only the fields used by the application are kept, the full details are held just until they are stored.
+ */
 public class WorkshopItem {
     private static final Logger logger = LogManager.getLogger("WorkshopItem");
     private static final String TITLE_NOT_FOUND = "[error: title not found]";
     private static final String PARSE_ID = "id";
     private static final String PARSE_DATA = "data";
+    private static final String PARSE_TITLE = "title";
+    private static final String PARSE_TIME_UPDATED = "time_updated";
+    private static final String PARSE_FILE_SIZE = "file_size";
+    private static final String PARSE_PREVIEW_URL = "preview_url";
+    private static final String PARSE_FETCHED_AT = "fetched_at";
     private final Integer id;
+    private String title;
+    private long timeUpdated;
+    private long fileSize;
+    private String previewUrl;
+    private long fetchedAt;
     private JSONObject data;
-    private boolean isDataLoaded;
 
     public WorkshopItem(Integer id) {
         this.id = id;
-        this.isDataLoaded = false;
-        this.data = new JSONObject();
     }
 
-    public WorkshopItem(JSONObject data) {
-        this.isDataLoaded = false;
+    /**
+     * Creates the item from its fields, as read from the binary cache.
+     */
+    public WorkshopItem(Integer id, String title, long timeUpdated, long fileSize, String previewUrl, long fetchedAt) {
+        this.id = id;
+        this.title = title;
+        this.timeUpdated = timeUpdated;
+        this.fileSize = fileSize;
+        this.previewUrl = previewUrl;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Creates the item from its compact JSON form.
+     * The former format, that stored the full details under "data", is still accepted.
+     */
+    public WorkshopItem(JSONObject obj) {
         Integer tmpId = -1;
         try {
-            tmpId = data.getInt(PARSE_ID);
-            this.data = data.getJSONObject(PARSE_DATA);
+            tmpId = obj.getInt(PARSE_ID);
+            parseFields(obj);
         } catch (JSONException e) {
             logger.error("unable to create JSON for parsing WorkshopItem in constructor", e);
-            this.data = new JSONObject();
         } finally {
             this.id = tmpId;
         }
     }
 
     public WorkshopItem(String serializedWorkshopItem) {
-        this.isDataLoaded = false;
         Integer tmpId = -1;
         try {
             JSONObject obj = new JSONObject(serializedWorkshopItem);
             tmpId = obj.getInt(PARSE_ID);
-            this.data = obj.getJSONObject(PARSE_DATA);
-
-            this.isDataLoaded = true;
+            parseFields(obj);
         } catch (JSONException e) {
             logger.error("unable to create JSON for parsing WorkshopItem in constructor", e);
-            this.data = new JSONObject();
         } finally {
             this.id = tmpId;
         }
@@ -58,14 +79,34 @@ public class WorkshopItem {
         logger.debug("item serialization: {}", serializedItem);
         WorkshopItem deserializedItem = new WorkshopItem(serializedItem);
         logger.debug("deserializedItem.id = {}", deserializedItem.id);
-        logger.debug("deserializedItem.data = {}", deserializedItem.data);
+        logger.debug("deserializedItem.title = {}", deserializedItem.title);
+    }
+
+    private void parseFields(JSONObject obj) throws JSONException {
+        if (obj.has(PARSE_DATA)) {
+            setData(obj.getJSONObject(PARSE_DATA));
+        } else {
+            projectFields(obj);
+            this.fetchedAt = obj.optLong(PARSE_FETCHED_AT);
+        }
+    }
+
+    private void projectFields(JSONObject source) {
+        this.title = source.optString(PARSE_TITLE, null);
+        this.timeUpdated = source.optLong(PARSE_TIME_UPDATED);
+        this.fileSize = source.optLong(PARSE_FILE_SIZE);
+        this.previewUrl = source.optString(PARSE_PREVIEW_URL, null);
     }
 
     public JSONObject toJsonObject() {
         JSONObject obj = new JSONObject();
         try {
             obj.put(PARSE_ID, id);
-            obj.put(PARSE_DATA, data);
+            obj.putOpt(PARSE_TITLE, title);
+            obj.put(PARSE_TIME_UPDATED, timeUpdated);
+            obj.put(PARSE_FILE_SIZE, fileSize);
+            obj.putOpt(PARSE_PREVIEW_URL, previewUrl);
+            obj.put(PARSE_FETCHED_AT, fetchedAt);
             return obj;
         } catch (JSONException e) {
             logger.error("unable to create JSON for parsing WorkshopItem in toString() method", e);
@@ -84,27 +125,77 @@ public class WorkshopItem {
     }
 
     public String getTitle() {
-        String title = TITLE_NOT_FOUND;
-        try {
-            title = data.getString("title");
-        } catch (NullPointerException | JSONException e) {
+        if (title == null) {
             logger.error("unable to retrieve item \"title\" from JSON");
-        } finally {
-            return title;
+            return TITLE_NOT_FOUND;
         }
+        return title;
+    }
+
+    /**
+     * Returns whether Steam delivered the title, which is missing if the item was removed or not fetched at all.
+     */
+    public boolean hasTitle() {
+        return title != null;
     }
 
     public Integer getId() {
         return this.id;
     }
 
+    public long getTimeUpdated() {
+        return timeUpdated;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    /**
+     * Returns when the details were fetched from Steam in epoch milliseconds, or 0 if that is unknown.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(long fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Returns whether the details were fetched at least {@code ttlMillis} before {@code now}.
+     */
+    public boolean isStale(long now, long ttlMillis) {
+        return now - fetchedAt >= ttlMillis;
+    }
+
+    /**
+     * Returns whether the full details are still held in memory.
+     */
+    public boolean hasDetails() {
+        return this.data != null;
+    }
+
+    /**
+     * Hands over the full details and drops them from this item.
+     */
+    public JSONObject releaseDetails() {
+        JSONObject details = this.data;
+        this.data = null;
+        return details;
+    }
+
     protected JSONObject getData() throws WorkshopItemDataNotLoadedException {
-        if (!isDataLoaded) throw new WorkshopItemDataNotLoadedException();
+        if (data == null) throw new WorkshopItemDataNotLoadedException();
         return this.data;
     }
 
     protected void setData(JSONObject data) {
         this.data = data;
-        isDataLoaded = (data != null);
+        if (data != null) projectFields(data);
     }
 }
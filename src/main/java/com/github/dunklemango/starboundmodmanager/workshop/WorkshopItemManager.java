@@ -1,13 +1,19 @@
 package com.github.dunklemango.starboundmodmanager.workshop;
 
 import com.github.dunklemango.starboundmodmanager.format.JSONStringFormatter;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
@@ -19,75 +25,294 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Loads data from Steam and extracts usable information.
  */
 public final class WorkshopItemManager {
-    private static final String WORKSHOP_URI = "https://api.steampowered.com/ISteamRemoteStorage/GetPublishedFileDetails/v1/";
+    public static final String DEFAULT_WORKSHOP_URI =
+            "https://api.steampowered.com/ISteamRemoteStorage/GetPublishedFileDetails/v1/";
+    /**
+     * System property that points the requests to another endpoint, like a local stub server.
+     */
+    public static final String WORKSHOP_URI_PROPERTY = "starboundmodmanager.workshop.uri";
+    public static final int DEFAULT_BATCH_SIZE = 100;
     private static final Logger logger = LogManager.getLogger("WorkshopItemManager");
+    private static final String PARSE_PUBLISHED_FILE_ID = "publishedfileid";
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+    private static final long IDLE_CONNECTION_TIMEOUT_SECONDS = 30;
+    private static final int REQUEST_TIMEOUT_MILLIS = 15000;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+    private static final long RETRY_MAX_DELAY_MILLIS = 30000;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final TokenBucket RATE_LIMITER = new TokenBucket(MAX_PARALLEL_REQUESTS, 2);
+    private static volatile CircuitBreaker circuitBreaker = initCircuitBreaker();
+    private static volatile String workshopUri = System.getProperty(WORKSHOP_URI_PROPERTY, DEFAULT_WORKSHOP_URI);
+    private static final CloseableHttpClient HTTP_CLIENT = initClient();
+    private static final ExecutorService REQUEST_EXECUTOR = initExecutor();
 
     private WorkshopItemManager() {
 
     }
 
+    public static String getWorkshopUri() {
+        return workshopUri;
+    }
+
+    public static void setWorkshopUri(String workshopUri) {
+        WorkshopItemManager.workshopUri = workshopUri;
+    }
+
+    public static CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Replaces the circuit breaker of the requests, so tests do not have to wait for the default open duration.
+     */
+    static void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        WorkshopItemManager.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Installs a new, closed circuit breaker with the default settings, undoing {@link #setCircuitBreaker}.
+     */
+    static void resetCircuitBreaker() {
+        circuitBreaker = initCircuitBreaker();
+    }
+
+    private static CircuitBreaker initCircuitBreaker() {
+        return new CircuitBreaker("steam-workshop", 5, 60, TimeUnit.SECONDS);
+    }
+
     public static void loadWorkshopDataFromSteam(List<WorkshopItem> workshopItems) {
-        try (CloseableHttpClient httpClient = initClient()) {
-            workshopItems.forEach(workshopItem -> {
-                logger.debug("retrieving data from server for workshopItem with id: {}", workshopItem.getId());
-                workshopItem.setData(loadWorkshopDataFromSteam(httpClient, workshopItem.getId()));
-                logger.debug("retrieved data for workshopItem: {}",
-                        JSONStringFormatter.formatJson(workshopItem.toJsonObject()));
-            });
-        } finally {
-            return;
-        }
+        loadWorkshopDataFromSteam(workshopItems, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Loads the data of all given workshopItems, requesting up to {@code batchSize} ids per HTTP-POST.
+     * Items that are missing from the response keep {@code null} as their data.
+     * Blocks until all batches are done, use {@link #fetchAsync(Collection)} from the JavaFX thread instead.
+     */
+    public static void loadWorkshopDataFromSteam(List<WorkshopItem> workshopItems, int batchSize) {
+        List<Integer> workshopIds = new ArrayList<>();
+        workshopItems.forEach(workshopItem -> workshopIds.add(workshopItem.getId()));
+        Map<Integer, JSONObject> dataOfIds = fetchAsync(workshopIds, batchSize).join();
+        long fetchedAt = System.currentTimeMillis();
+        workshopItems.forEach(workshopItem -> {
+            setFetchedData(workshopItem, dataOfIds.get(workshopItem.getId()), fetchedAt);
+            logger.debug("retrieved data for workshopItem: {}",
+                    JSONStringFormatter.formatJson(workshopItem.toJsonObject()));
+        });
     }
 
     public static void loadWorkshopDataFromSteam(WorkshopItem workshopItem) {
-        try (CloseableHttpClient httpClient = initClient()) {
-            workshopItem.setData(loadWorkshopDataFromSteam(httpClient, workshopItem.getId()));
-        } finally {
-            return;
+        loadWorkshopDataFromSteam(Collections.singletonList(workshopItem));
+    }
+
+    public static CompletableFuture<Map<Integer, JSONObject>> fetchAsync(Collection<Integer> workshopIds) {
+        return fetchAsync(workshopIds, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Fetches the data of all given workshopIds on the shared request executor.
+     * Each batch of up to {@code batchSize} ids is sent as one HTTP-POST, only a few batches
+     * are in flight at the same time and share the pooled keep-alive connections.
+     * Ids that are missing from the responses are missing from the resulting map.
+     */
+    public static CompletableFuture<Map<Integer, JSONObject>> fetchAsync(Collection<Integer> workshopIds,
+                                                                         int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1!");
+        List<Integer> ids = new ArrayList<>(workshopIds);
+        List<CompletableFuture<Map<Integer, JSONObject>>> futures = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Integer> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                logger.debug("retrieving data from server for workshopItems with ids: {}", batch);
+                return loadWorkshopDataFromSteam(HTTP_CLIENT, batch);
+            }, REQUEST_EXECUTOR));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<Integer, JSONObject> dataOfIds = new HashMap<>();
+            futures.forEach(future -> dataOfIds.putAll(future.join()));
+            return dataOfIds;
+        });
+    }
+
+    /**
+     * Same as {@link #fetchAsync(Collection)}, but wraps the fetched data into workshopItems.
+     * Every requested id gets an item, ids without a response carry {@code null} as their data
+     * and 0 as the time they were fetched at.
+     */
+    public static CompletableFuture<List<WorkshopItem>> fetchWorkshopItemsAsync(Collection<Integer> workshopIds) {
+        return fetchAsync(workshopIds).thenApply(dataOfIds -> {
+            long fetchedAt = System.currentTimeMillis();
+            List<WorkshopItem> workshopItems = new ArrayList<>();
+            workshopIds.forEach(id -> {
+                WorkshopItem workshopItem = new WorkshopItem(id);
+                setFetchedData(workshopItem, dataOfIds.get(id), fetchedAt);
+                workshopItems.add(workshopItem);
+            });
+            return workshopItems;
+        });
+    }
+
+    private static void setFetchedData(WorkshopItem workshopItem, JSONObject data, long fetchedAt) {
+        workshopItem.setData(data);
+        if (data != null) workshopItem.setFetchedAt(fetchedAt);
+    }
+
+    /**
+     * Sends the HTTP-POST for the batch, throttled by the rate limiter. Failed connections and retryable statuses
+     * are retried with jittered exponential backoff, while the circuit breaker stops all requests once Steam
+     * keeps failing. Returns an empty map if the batch could not be fetched, so the callers keep the cached data.
+     */
+    private static Map<Integer, JSONObject> loadWorkshopDataFromSteam(CloseableHttpClient httpClient,
+                                                                      List<Integer> workshopIds) {
+        CircuitBreaker circuitBreaker = WorkshopItemManager.circuitBreaker;
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                logger.warn("circuit is open, skipping request for {} workshopItems", workshopIds.size());
+                return new HashMap<>();
+            }
+            long retryAfterMillis = 0;
+            // the service answered, even if it was with an error of the request itself, so retrying would not help
+            boolean isServiceAvailable = false;
+            try {
+                RATE_LIMITER.acquire();
+                try (CloseableHttpResponse response = httpClient.execute(createRequestForWorkshopIds(workshopIds))) {
+                    int status = response.getStatusLine().getStatusCode();
+                    HttpEntity entity = response.getEntity();
+                    String body = (entity != null) ? EntityUtils.toString(entity) : "";
+                    if (status == HTTP_OK) {
+                        isServiceAvailable = true;
+                        return getDataJsonFromString(body);
+                    }
+                    if (!isRetryableStatus(status)) {
+                        isServiceAvailable = true;
+                        logger.error("HTTP-POST request was rejected with status {}", status);
+                        return new HashMap<>();
+                    }
+                    logger.warn("HTTP-POST request failed with status {} (attempt {} of {})", status, attempt,
+                            MAX_ATTEMPTS);
+                    retryAfterMillis = getRetryAfterMillis(response);
+                }
+            } catch (IOException e) {
+                logger.warn("unable to complete HTTP-POST request (attempt {} of {})", attempt, MAX_ATTEMPTS, e);
+            } catch (JSONException e) {
+                logger.error("HTTP-POST response received but unable to convert to JSON", e);
+                return new HashMap<>();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new HashMap<>();
+            } finally {
+                // recorded on every way out, as a trial request without outcome would keep the circuit half-open
+                if (isServiceAvailable) {
+                    circuitBreaker.recordSuccess();
+                } else {
+                    circuitBreaker.recordFailure();
+                }
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                logger.error("giving up on {} workshopItems after {} attempts", workshopIds.size(), attempt);
+                return new HashMap<>();
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(Math.max(retryAfterMillis, getRetryDelayMillis(attempt)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new HashMap<>();
+            }
         }
     }
 
-    private static JSONObject loadWorkshopDataFromSteam(CloseableHttpClient httpClient, int workshopId) {
-        JSONObject data = null;
+    private static boolean isRetryableStatus(int status) {
+        return status == HTTP_TOO_MANY_REQUESTS || status >= 500;
+    }
+
+    /**
+     * Returns a random delay of up to the exponentially growing backoff, so parallel batches do not retry in step.
+     */
+    private static long getRetryDelayMillis(int attempt) {
+        long backoff = Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << Math.min(attempt - 1, 16));
+        return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+
+    /**
+     * Returns the delay the "Retry-After" header asks for in seconds, or 0 if there is none.
+     */
+    private static long getRetryAfterMillis(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) return 0;
         try {
-            CloseableHttpResponse response = httpClient.execute(createRequestForWorkshopId(workshopId));
-            HttpEntity entity = response.getEntity();
-
-            data = getDataJsonFromString(EntityUtils.toString(entity));
-
-            EntityUtils.consume(entity);
-            response.close();
-        } catch (IOException e) {
-            logger.error("unable to complete HTTP-POST request", e);
-        } catch (JSONException e) {
-            logger.error("HTTP-POST response received but unable to convert to JSON", e);
-        } finally {
-            return data;
+            return Math.min(RETRY_MAX_DELAY_MILLIS, TimeUnit.SECONDS.toMillis(Long.parseLong(header.getValue().trim())));
+        } catch (NumberFormatException e) {
+            logger.debug("ignoring Retry-After header that is no number of seconds: {}", header.getValue());
+            return 0;
         }
     }
 
-    private static JSONObject getDataJsonFromString(String jsonString) throws JSONException {
+    private static Map<Integer, JSONObject> getDataJsonFromString(String jsonString) throws JSONException {
         final JSONObject jsonObject = new JSONObject(jsonString);
         final JSONObject jsonResponse = jsonObject.getJSONObject("response");
         final JSONArray publishedFileDetails = jsonResponse.getJSONArray("publishedfiledetails");
-        return publishedFileDetails.getJSONObject(0);
+        Map<Integer, JSONObject> dataOfIds = new HashMap<>();
+        for (int i = 0; i < publishedFileDetails.length(); i++) {
+            JSONObject details = publishedFileDetails.getJSONObject(i);
+            try {
+                dataOfIds.put(Integer.valueOf(details.getString(PARSE_PUBLISHED_FILE_ID)), details);
+            } catch (NumberFormatException e) {
+                logger.error("publishedfiledetails #{} contains an illegal id: \"{}\"", i,
+                        details.optString(PARSE_PUBLISHED_FILE_ID));
+            }
+        }
+        return dataOfIds;
     }
 
     private static CloseableHttpClient initClient() {
-        return HttpClients.createDefault();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_PARALLEL_REQUESTS);
+        connectionManager.setDefaultMaxPerRoute(MAX_PARALLEL_REQUESTS);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(REQUEST_TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(REQUEST_TIMEOUT_MILLIS)
+                .setSocketTimeout(REQUEST_TIMEOUT_MILLIS)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    private static ExecutorService initExecutor() {
+        return Executors.newFixedThreadPool(MAX_PARALLEL_REQUESTS, runnable -> {
+            Thread thread = new Thread(runnable, "workshop-request");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    private static HttpPost createRequestForWorkshopId(int workshopId) throws UnsupportedEncodingException {
-        HttpPost httpPost = new HttpPost(WORKSHOP_URI);
+    private static HttpPost createRequestForWorkshopIds(List<Integer> workshopIds) throws UnsupportedEncodingException {
+        HttpPost httpPost = new HttpPost(workshopUri);
         List<NameValuePair> nvps = new ArrayList<>();
-        nvps.add(new BasicNameValuePair("itemcount", "1"));
-        nvps.add(new BasicNameValuePair("publishedfileids[0]", String.valueOf(workshopId)));
+        nvps.add(new BasicNameValuePair("itemcount", String.valueOf(workshopIds.size())));
+        for (int i = 0; i < workshopIds.size(); i++) {
+            nvps.add(new BasicNameValuePair("publishedfileids[" + i + "]", String.valueOf(workshopIds.get(i))));
+        }
         httpPost.setEntity(new UrlEncodedFormEntity(nvps));
         return httpPost;
     }
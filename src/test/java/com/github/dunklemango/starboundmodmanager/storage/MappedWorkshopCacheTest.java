@@ -0,0 +1,118 @@
+package com.github.dunklemango.starboundmodmanager.storage;
+
+import com.github.dunklemango.starboundmodmanager.workshop.WorkshopItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class MappedWorkshopCacheTest {
+    private static final String TITLE = "Gr\u00f6\u00dfere Schiffe \u2013 \u5b87\u5b99\u8239 \ud83d\ude80";
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("workshop-cache", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Test
+    public void readsWrittenItems() throws IOException {
+        MappedWorkshopCache.write(file, Arrays.asList(
+                new WorkshopItem(30, "Frackin' Universe", 1500000000L, 4096L, "https://example.com/30.png", 7L),
+                new WorkshopItem(10, null, 1L, 2L, "https://example.com/10.png", 3L),
+                new WorkshopItem(20, TITLE, 4L, 5L, null, 6L)));
+
+        MappedWorkshopCache cache = MappedWorkshopCache.open(file);
+
+        assertEquals(3, cache.size());
+        assertEquals(10, cache.getId(0));
+        assertEquals(30, cache.getId(2));
+        WorkshopItem untitled = cache.get(10);
+        assertFalse(untitled.hasTitle());
+        assertEquals("https://example.com/10.png", untitled.getPreviewUrl());
+        assertEquals(1L, untitled.getTimeUpdated());
+        assertEquals(2L, untitled.getFileSize());
+        assertEquals(3L, untitled.getFetchedAt());
+        WorkshopItem withoutPreview = cache.get(20);
+        assertEquals(TITLE, withoutPreview.getTitle());
+        assertNull(withoutPreview.getPreviewUrl());
+        WorkshopItem item = cache.get(30);
+        assertEquals("Frackin' Universe", item.getTitle());
+        assertEquals(1500000000L, item.getTimeUpdated());
+        assertNull(cache.get(40));
+    }
+
+    @Test
+    public void readsEmptyFile() throws IOException {
+        MappedWorkshopCache.write(file, Collections.emptyList());
+
+        MappedWorkshopCache cache = MappedWorkshopCache.open(file);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(10));
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        writeItems();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertRejected();
+    }
+
+    @Test
+    public void rejectsRecordOutOfRecords() throws IOException {
+        writeItems();
+        // the record offset of the second index entry
+        patchInt(8 * 4 + 8 + 4, Integer.MAX_VALUE - 8);
+
+        assertRejected();
+    }
+
+    @Test
+    public void rejectsStringOutOfStrings() throws IOException {
+        writeItems();
+        // the title length of the first record, which follows the index of two entries
+        patchInt(8 * 4 + 2 * 8 + 28 + 4, 1000);
+
+        assertRejected();
+    }
+
+    private void writeItems() throws IOException {
+        MappedWorkshopCache.write(file, Arrays.asList(
+                new WorkshopItem(1, "first", 1L, 1L, "https://example.com/1.png", 1L),
+                new WorkshopItem(2, "second", 2L, 2L, "https://example.com/2.png", 2L)));
+    }
+
+    private void patchInt(int position, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(position, value);
+        Files.write(file, bytes);
+    }
+
+    private void assertRejected() {
+        try {
+            MappedWorkshopCache.open(file);
+            fail("corrupt file was opened");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.dunklemango.starboundmodmanager.transfer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaPatcherTest {
+    private final Random random = new Random(211820);
+    private Path dir;
+    private Path source;
+    private Path target;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("delta-patcher");
+        source = dir.resolve("source.pak");
+        target = dir.resolve("target.pak");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void patchShrinksTarget() throws IOException {
+        byte[] original = randomBytes(3 * DeltaPatcher.BLOCK_SIZE + 100);
+        byte[] updated = changeBlock(Arrays.copyOf(original, DeltaPatcher.BLOCK_SIZE + 50), 1);
+        Files.write(target, original);
+        Files.write(source, updated);
+
+        DeltaPatcher.patch(source, target, bytes -> { });
+
+        assertArrayEquals(updated, Files.readAllBytes(target));
+        assertFalse(Files.exists(getUndoPath()));
+    }
+
+    @Test
+    public void patchGrowsTarget() throws IOException {
+        byte[] original = randomBytes(DeltaPatcher.BLOCK_SIZE + 50);
+        byte[] updated = changeBlock(Arrays.copyOf(original, 3 * DeltaPatcher.BLOCK_SIZE + 100), 2);
+        Files.write(target, original);
+        Files.write(source, updated);
+
+        long bytesWritten = DeltaPatcher.patch(source, target, bytes -> { });
+
+        assertArrayEquals(updated, Files.readAllBytes(target));
+        assertEquals(updated.length - DeltaPatcher.BLOCK_SIZE, bytesWritten);
+        assertFalse(Files.exists(getUndoPath()));
+    }
+
+    @Test
+    public void patchSkipsEqualTarget() throws IOException {
+        byte[] original = randomBytes(2 * DeltaPatcher.BLOCK_SIZE);
+        Files.write(target, original);
+        Files.write(source, original);
+
+        assertEquals(0, DeltaPatcher.patch(source, target, bytes -> { }));
+        assertArrayEquals(original, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void recoverRestoresShrunkTarget() throws IOException {
+        byte[] original = randomBytes(3 * DeltaPatcher.BLOCK_SIZE + 100);
+        Files.write(target, original);
+        Files.write(source, changeBlock(Arrays.copyOf(original, DeltaPatcher.BLOCK_SIZE + 50), 0));
+
+        DeltaPatcher.writePatch(source, target, bytes -> { });
+        assertTrue(Files.exists(getUndoPath()));
+        DeltaPatcher.recover(target);
+
+        assertArrayEquals(original, Files.readAllBytes(target));
+        assertFalse(Files.exists(getUndoPath()));
+    }
+
+    @Test
+    public void recoverRestoresGrownTarget() throws IOException {
+        byte[] original = randomBytes(DeltaPatcher.BLOCK_SIZE + 50);
+        Files.write(target, original);
+        Files.write(source, changeBlock(Arrays.copyOf(original, 3 * DeltaPatcher.BLOCK_SIZE + 100), 1));
+
+        DeltaPatcher.writePatch(source, target, bytes -> { });
+        assertTrue(Files.exists(getUndoPath()));
+        DeltaPatcher.recover(target);
+
+        assertArrayEquals(original, Files.readAllBytes(target));
+        assertFalse(Files.exists(getUndoPath()));
+    }
+
+    @Test
+    public void recoverInterruptedPatchesDeletesOrphanedUndoFiles() throws IOException {
+        byte[] original = randomBytes(2 * DeltaPatcher.BLOCK_SIZE);
+        Files.write(target, original);
+        Files.write(source, changeBlock(original.clone(), 1));
+        DeltaPatcher.writePatch(source, target, bytes -> { });
+        Path orphanedUndoPath = dir.resolve("removed.pak.undo");
+        Files.copy(getUndoPath(), orphanedUndoPath);
+
+        DeltaPatcher.recoverInterruptedPatches(dir);
+
+        assertArrayEquals(original, Files.readAllBytes(target));
+        assertFalse(Files.exists(getUndoPath()));
+        assertFalse(Files.exists(orphanedUndoPath));
+    }
+
+    private Path getUndoPath() {
+        return target.resolveSibling(target.getFileName() + ".undo");
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Flips the first byte of the block, so it differs from the original.
+     */
+    private static byte[] changeBlock(byte[] bytes, int block) {
+        bytes[block * DeltaPatcher.BLOCK_SIZE] ^= 0x5A;
+        return bytes;
+    }
+}
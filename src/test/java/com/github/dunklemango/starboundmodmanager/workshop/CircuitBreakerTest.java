@@ -0,0 +1,74 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private static final long OPEN_MILLIS = 100;
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, OPEN_MILLIS, TimeUnit.MILLISECONDS);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void closesAfterSuccessfulTrial() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void reopensAfterFailedTrial() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void replacesTrialWithoutOutcome() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN_MILLIS + 20);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        TimeUnit.MILLISECONDS.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, OPEN_MILLIS, TimeUnit.MILLISECONDS);
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.dunklemango.starboundmodmanager.workshop;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the requests against a local stub server, which answers with the queued statuses first and then with 200.
+ */
+public class WorkshopItemManagerTest {
+    private static final String RESPONSE_BODY = "{\"response\":{\"publishedfiledetails\":["
+            + "{\"publishedfileid\":\"1\",\"title\":\"First Mod\"},{\"publishedfileid\":\"2\",\"title\":\"Second Mod\"}]}}";
+    private static final long OPEN_MILLIS = 300;
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private HttpServer server;
+    private String retryAfter;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            Integer status = statuses.poll();
+            byte[] body = ((status == null) ? RESPONSE_BODY : "").getBytes(StandardCharsets.UTF_8);
+            if (status != null && retryAfter != null) exchange.getResponseHeaders().add("Retry-After", retryAfter);
+            exchange.sendResponseHeaders((status == null) ? 200 : status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        WorkshopItemManager.setWorkshopUri("http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/");
+        WorkshopItemManager.setCircuitBreaker(new CircuitBreaker("test", 5, OPEN_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        WorkshopItemManager.setWorkshopUri(WorkshopItemManager.DEFAULT_WORKSHOP_URI);
+        WorkshopItemManager.resetCircuitBreaker();
+    }
+
+    @Test
+    public void fetchesData() {
+        Map<Integer, JSONObject> dataOfIds = fetch();
+
+        assertEquals(2, dataOfIds.size());
+        assertEquals("Second Mod", dataOfIds.get(2).optString("title"));
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void retriesTooManyRequestsAndServerErrors() {
+        statuses.addAll(Arrays.asList(429, 503));
+
+        Map<Integer, JSONObject> dataOfIds = fetch();
+
+        assertEquals(2, dataOfIds.size());
+        assertEquals(3, requestCount.get());
+        assertEquals(CircuitBreaker.State.CLOSED, WorkshopItemManager.getCircuitState());
+    }
+
+    @Test
+    public void waitsForRetryAfter() {
+        retryAfter = "2";
+        statuses.add(429);
+        long startTime = System.nanoTime();
+
+        Map<Integer, JSONObject> dataOfIds = fetch();
+
+        assertEquals(2, dataOfIds.size());
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void givesUpOnClientErrors() {
+        statuses.add(400);
+
+        assertTrue(fetch().isEmpty());
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void opensAndClosesCircuit() throws InterruptedException {
+        // opens longer than the backoff before the third attempt, which therefore is rejected
+        long openMillis = 1500;
+        WorkshopItemManager.setCircuitBreaker(new CircuitBreaker("test", 2, openMillis, TimeUnit.MILLISECONDS));
+        statuses.addAll(Arrays.asList(503, 503, 503));
+
+        assertTrue(fetch().isEmpty());
+        assertEquals(2, requestCount.get());
+        assertEquals(CircuitBreaker.State.OPEN, WorkshopItemManager.getCircuitState());
+        assertTrue(fetch().isEmpty());
+        assertEquals(2, requestCount.get());
+
+        TimeUnit.MILLISECONDS.sleep(openMillis + 50);
+        // the trial request fails, so the circuit opens again
+        assertTrue(fetch().isEmpty());
+        assertEquals(3, requestCount.get());
+        assertEquals(CircuitBreaker.State.OPEN, WorkshopItemManager.getCircuitState());
+
+        TimeUnit.MILLISECONDS.sleep(openMillis + 50);
+        assertEquals(2, fetch().size());
+        assertEquals(4, requestCount.get());
+        assertEquals(CircuitBreaker.State.CLOSED, WorkshopItemManager.getCircuitState());
+    }
+
+    private static Map<Integer, JSONObject> fetch() {
+        return WorkshopItemManager.fetchAsync(Arrays.asList(1, 2)).join();
+    }
+}